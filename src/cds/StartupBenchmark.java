@@ -0,0 +1,103 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Cold starts of the generator jar: without class-data sharing, with the default archive of the
+ * JDK and with the archive dumped by {@code mvn -Pcds package}. Every run is a new JVM that
+ * generates the spec into an empty folder, the configurations take turns so that disk caches and
+ * CPU frequency affect them alike. Run by {@code mvn -Pcds package exec:exec@startup-benchmark},
+ * or with the source launcher:
+ *
+ * <pre>java src/cds/StartupBenchmark.java target/rails5-api-generator-1.0-SNAPSHOT.jar target/rails5-api-generator.jsa src/test/resources/petstore.yaml 20</pre>
+ */
+public class StartupBenchmark {
+    private static final int WARMUP_ROUNDS = 2;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 3) {
+            System.err.println("usage: StartupBenchmark <jar> <archive> <spec> [runs]");
+            System.exit(2);
+        }
+        final String jar = new File(args[0]).getAbsolutePath();
+        final String archive = new File(args[1]).getAbsolutePath();
+        final String spec = new File(args[2]).getAbsolutePath();
+        final int runs = args.length > 3 ? Integer.parseInt(args[3]) : 20;
+        if (!new File(archive).isFile()) {
+            System.err.println(archive + " not found, run mvn -Pcds package first");
+            System.exit(1);
+        }
+
+        final Map<String, List<String>> configurations = new LinkedHashMap<>();
+        configurations.put("no CDS", Collections.singletonList("-Xshare:off"));
+        configurations.put("JDK archive", Collections.emptyList());
+        // fails instead of silently running without the archive if it cannot be mapped
+        configurations.put("app archive", Arrays.asList("-Xshare:on", "-XX:SharedArchiveFile=" + archive));
+
+        final Map<String, List<Long>> times = new LinkedHashMap<>();
+        for (String name : configurations.keySet()) {
+            times.put(name, new ArrayList<>());
+        }
+        for (int round = 0; round < WARMUP_ROUNDS + runs; round++) {
+            for (Map.Entry<String, List<String>> configuration : configurations.entrySet()) {
+                final long nanos = run(jar, spec, configuration.getValue());
+                if (round >= WARMUP_ROUNDS) {
+                    times.get(configuration.getKey()).add(nanos);
+                }
+            }
+        }
+
+        System.out.printf("%d cold starts each, %s%n", runs, spec);
+        System.out.printf("%-12s %10s %10s %10s%n", "", "min ms", "median ms", "max ms");
+        final double baseline = median(times.get("no CDS"));
+        for (Map.Entry<String, List<Long>> entry : times.entrySet()) {
+            final List<Long> sorted = new ArrayList<>(entry.getValue());
+            Collections.sort(sorted);
+            System.out.printf("%-12s %10.1f %10.1f %10.1f   %.2fx%n", entry.getKey(),
+                    sorted.get(0) / 1e6, median(sorted) / 1e6, sorted.get(sorted.size() - 1) / 1e6,
+                    baseline / median(sorted));
+        }
+    }
+
+    private static long run(String jar, String spec, List<String> jvmArgs) throws IOException, InterruptedException {
+        final Path output = Files.createTempDirectory("rails5-startup-");
+        try {
+            final List<String> command = new ArrayList<>();
+            command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+            command.addAll(jvmArgs);
+            command.addAll(Arrays.asList("-jar", jar, "-i", spec, "-o", output.toString()));
+
+            final long start = System.nanoTime();
+            final Process process = new ProcessBuilder(command)
+                    .redirectErrorStream(true)
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+            final int status = process.waitFor();
+            final long nanos = System.nanoTime() - start;
+            if (status != 0) {
+                throw new IllegalStateException(String.join(" ", command) + " exited with " + status);
+            }
+            return nanos;
+        } finally {
+            try (Stream<Path> files = Files.walk(output)) {
+                files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+            }
+        }
+    }
+
+    private static double median(List<Long> times) {
+        final List<Long> sorted = new ArrayList<>(times);
+        Collections.sort(sorted);
+        final int middle = sorted.size() / 2;
+        return sorted.size() % 2 == 1 ? sorted.get(middle) : (sorted.get(middle - 1) + sorted.get(middle)) / 2.0;
+    }
+}
@@ -0,0 +1,32 @@
+package trungvitlonx.swagger.generator.rails5;
+
+import trungvitlonx.swagger.generator.SpecSynthesizer;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Specs of different sizes for the benchmarks.
+ */
+final class BenchmarkSpecs {
+    static final String PETSTORE = "src/test/resources/petstore.yaml";
+
+    private BenchmarkSpecs() {}
+
+    /**
+     * @param size small (petstore), medium (500 synthetic paths) or huge (10000 synthetic paths)
+     */
+    static File spec(String size) throws IOException {
+        switch (size) {
+            case "small":
+                return new File(PETSTORE);
+            case "medium":
+                return new SpecSynthesizer().paths(500).tags(25).writeTempFile(".yaml");
+            case "huge":
+                return new SpecSynthesizer().paths(10000).tags(200).paramsPerOperation(10).nestingDepth(5)
+                        .enumSize(32).writeTempFile(".yaml");
+            default:
+                throw new IllegalArgumentException("Unknown spec size " + size);
+        }
+    }
+}
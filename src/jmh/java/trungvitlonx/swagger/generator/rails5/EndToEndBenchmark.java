@@ -0,0 +1,53 @@
+package trungvitlonx.swagger.generator.rails5;
+
+import io.swagger.codegen.v3.DefaultGenerator;
+import io.swagger.codegen.v3.config.CodegenConfigurator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full DefaultGenerator runs: parsing, post-processing, rendering and writing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MINUTES)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class EndToEndBenchmark {
+
+    @Param({"small", "medium", "huge"})
+    public String size;
+
+    private File spec;
+    private File output;
+
+    @Setup
+    public void setUp() throws Exception {
+        spec = BenchmarkSpecs.spec(size);
+        output = Files.createTempDirectory("rails5-bench-").toFile();
+    }
+
+    @Benchmark
+    public List<File> generate() {
+        final CodegenConfigurator configurator = new CodegenConfigurator()
+                .setLang("rails5")
+                .setInputSpecURL(spec.getAbsolutePath())
+                .setOutputDir(output.getAbsolutePath());
+        return new DefaultGenerator().opts(configurator.toClientOptInput()).generate();
+    }
+}
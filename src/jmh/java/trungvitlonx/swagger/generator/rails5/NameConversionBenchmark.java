@@ -0,0 +1,74 @@
+package trungvitlonx.swagger.generator.rails5;
+
+import io.swagger.codegen.v3.generators.DefaultCodegenConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NameConversionBenchmark {
+    private static final String[] NAMES = {
+        "petId", "photoUrls", "created-at", "STATUS_CODE", "HTTPServerError", "x-rate-limit", "1st",
+        "findPetsByStatus", "getPetById", "updatePetWithForm", "already_snake_case", "category_ids", "tagIds"
+    };
+
+    private Rails5Codegen codegen;
+
+    @Setup
+    public void setUp() {
+        codegen = new Rails5Codegen();
+    }
+
+    @Benchmark
+    public void toVarName(Blackhole blackhole) {
+        for (String name : NAMES) {
+            blackhole.consume(codegen.toVarName(name));
+        }
+    }
+
+    @Benchmark
+    public void toVarNameUncached(Blackhole blackhole) {
+        for (String name : NAMES) {
+            blackhole.consume(codegen.convertVarName(name));
+        }
+    }
+
+    @Benchmark
+    public void toOperationId(Blackhole blackhole) {
+        for (String name : NAMES) {
+            blackhole.consume(codegen.toOperationId(name));
+        }
+    }
+
+    @Benchmark
+    public void toOperationIdUncached(Blackhole blackhole) {
+        for (String name : NAMES) {
+            blackhole.consume(codegen.convertOperationId(name));
+        }
+    }
+
+    /**
+     * The regex based conversion the generator used before, as a baseline.
+     */
+    @Benchmark
+    public void underscoreRegex(Blackhole blackhole) {
+        for (String name : NAMES) {
+            blackhole.consume(DefaultCodegenConfig.underscore(name));
+        }
+    }
+}
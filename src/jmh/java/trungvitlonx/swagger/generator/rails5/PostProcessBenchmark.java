@@ -0,0 +1,114 @@
+package trungvitlonx.swagger.generator.rails5;
+
+import io.swagger.codegen.v3.ClientOptInput;
+import io.swagger.codegen.v3.CodegenOperation;
+import io.swagger.codegen.v3.CodegenParameter;
+import io.swagger.codegen.v3.DefaultGenerator;
+import io.swagger.codegen.v3.config.CodegenConfigurator;
+import io.swagger.v3.oas.models.OpenAPI;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link Rails5Codegen#postProcessOperations} and {@link Rails5Codegen#postProcessSupportingFileData}
+ * on the operations DefaultGenerator builds for a spec, without template rendering or I/O.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PostProcessBenchmark {
+
+    @Param({"small", "medium"})
+    public String size;
+
+    private Rails5Codegen codegen;
+    private OpenAPI openAPI;
+    private List<List<CodegenOperation>> groups;
+    // CodegenOperation.hashCode() depends on the fields postProcessOperations mutates
+    private Map<CodegenOperation, List<CodegenParameter>> originalParams;
+    private List<Map<String, Object>> objs;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() throws Exception {
+        final ClientOptInput input = new CodegenConfigurator()
+                .setLang("rails5")
+                .setInputSpecURL(BenchmarkSpecs.spec(size).getAbsolutePath())
+                .setOutputDir(Files.createTempDirectory("rails5-bench-").toString())
+                .toClientOptInput();
+
+        codegen = (Rails5Codegen) input.getConfig();
+        openAPI = input.getOpenAPI();
+        codegen.processOpts();
+        codegen.preprocessOpenAPI(openAPI);
+
+        final DefaultGenerator generator = new DefaultGenerator();
+        generator.opts(input);
+
+        groups = new ArrayList<>(generator.processPaths(openAPI.getPaths()).values());
+        originalParams = new IdentityHashMap<>();
+        for (List<CodegenOperation> operations : groups) {
+            for (CodegenOperation operation : operations) {
+                originalParams.put(operation, operation.allParams == null ? null : new ArrayList<>(operation.allParams));
+            }
+        }
+    }
+
+    /**
+     * postProcessOperations appends body fields to allParams, start every call from the original lists.
+     */
+    @Setup(Level.Invocation)
+    public void setUpInvocation() {
+        objs = new ArrayList<>(groups.size());
+        for (List<CodegenOperation> operations : groups) {
+            for (CodegenOperation operation : operations) {
+                final List<CodegenParameter> params = originalParams.get(operation);
+                operation.allParams = params == null ? null : new ArrayList<>(params);
+            }
+
+            final Map<String, Object> operationMap = new HashMap<>();
+            operationMap.put("classname", codegen.toApiName(operations.get(0).baseName));
+            operationMap.put("operation", operations);
+
+            final Map<String, Object> group = new HashMap<>();
+            group.put("operations", operationMap);
+            objs.add(group);
+        }
+    }
+
+    @Benchmark
+    public Object postProcessOperations() {
+        Object last = null;
+        for (Map<String, Object> group : objs) {
+            last = codegen.postProcessOperations(group);
+        }
+        return last;
+    }
+
+    @Benchmark
+    public Object postProcessSupportingFileData() {
+        final Map<String, Object> bundle = new HashMap<>();
+        bundle.put("openAPI", openAPI);
+        return codegen.postProcessSupportingFileData(bundle);
+    }
+}
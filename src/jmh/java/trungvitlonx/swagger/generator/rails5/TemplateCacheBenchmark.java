@@ -0,0 +1,96 @@
+package trungvitlonx.swagger.generator.rails5;
+
+import io.swagger.codegen.v3.ClientOptInput;
+import io.swagger.codegen.v3.DefaultGenerator;
+import io.swagger.codegen.v3.config.CodegenConfigurator;
+import io.swagger.codegen.v3.templates.HandlebarTemplateEngine;
+import io.swagger.codegen.v3.templates.TemplateEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Renders everything one generation run renders, as the stock engine does (compiling every
+ * template on every render) and as a fresh generator does once the process-wide cache is warm.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TemplateCacheBenchmark {
+
+    @Param({"small", "medium"})
+    public String size;
+
+    private Rails5Codegen codegen;
+    private final List<String> templateFiles = new ArrayList<>();
+    private final List<Map<String, Object>> templateData = new ArrayList<>();
+
+    @Setup
+    public void setUp() throws Exception {
+        final ClientOptInput input = new CodegenConfigurator()
+                .setLang("rails5")
+                .setInputSpecURL(BenchmarkSpecs.spec(size).getAbsolutePath())
+                .setOutputDir(Files.createTempDirectory("rails5-bench-").toString())
+                .toClientOptInput();
+
+        // run once and keep every render of that run
+        codegen = new Rails5Codegen() {
+            @Override
+            public TemplateEngine getTemplateEngine() {
+                final TemplateEngine engine = super.getTemplateEngine();
+                return engine == null ? null : new TemplateEngine() {
+                    @Override
+                    public String getRendered(String templateFile, Map<String, Object> data) throws IOException {
+                        templateFiles.add(templateFile);
+                        templateData.add(data);
+                        return engine.getRendered(templateFile, data);
+                    }
+
+                    @Override
+                    public String getName() {
+                        return engine.getName();
+                    }
+                };
+            }
+        };
+        codegen.setOutputDir(input.getConfig().getOutputDir());
+        codegen.additionalProperties().putAll(input.getConfig().additionalProperties());
+        input.setConfig(codegen);
+        new DefaultGenerator().opts(input).generate();
+    }
+
+    @Benchmark
+    public void uncached(Blackhole blackhole) throws IOException {
+        render(new HandlebarTemplateEngine(codegen), blackhole);
+    }
+
+    @Benchmark
+    public void cached(Blackhole blackhole) throws IOException {
+        render(new CachedTemplateEngine(codegen, codegen.templateHashes()), blackhole);
+    }
+
+    private void render(TemplateEngine engine, Blackhole blackhole) throws IOException {
+        for (int i = 0; i < templateFiles.size(); i++) {
+            blackhole.consume(engine.getRendered(templateFiles.get(i), templateData.get(i)));
+        }
+    }
+}
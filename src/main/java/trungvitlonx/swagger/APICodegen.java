@@ -1,27 +1,199 @@
 package trungvitlonx.swagger;
 
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import io.swagger.codegen.v3.ClientOptInput;
-import io.swagger.codegen.v3.DefaultGenerator;
-import io.swagger.codegen.v3.config.CodegenConfigurator;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+
+import trungvitlonx.swagger.batch.BatchGenerator;
+import trungvitlonx.swagger.batch.GenerationResult;
+import trungvitlonx.swagger.batch.GenerationServer;
+import trungvitlonx.swagger.batch.GenerationTask;
+import trungvitlonx.swagger.batch.SpecCache;
+import trungvitlonx.swagger.batch.SpecWatcher;
+import trungvitlonx.swagger.generator.rails5.ArchiveSink;
+import trungvitlonx.swagger.generator.rails5.GenerationPhaseEvent;
+import trungvitlonx.swagger.generator.rails5.Rails5Codegen;
+
+import java.io.File;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.List;
 
 public class APICodegen {
     private static final Logger LOGGER = LoggerFactory.getLogger(APICodegen.class);
 
+    private static final String USAGE = "java -jar rails5-api-generator.jar (-i <spec> (-o <dir> | -a <archive>) | -m <manifest> | --serve <port>)";
+
     public static void main(String[] args) {
+        final Options options = buildOptions();
+
         try {
-            final String outputDir = "/Users/trungle/rails5-api-demo";
-            final CodegenConfigurator configurator = new CodegenConfigurator()
-                    .setLang("rails5")
-                    .setInputSpecURL("/Users/trungle/rails5-api-generator/src/test/resources/petstore.yaml")
-                    .setOutputDir(outputDir);
-
-            final ClientOptInput clientOptInput = configurator.toClientOptInput();
-            new DefaultGenerator().opts(clientOptInput).generate();
+            final CommandLine cmd = new DefaultParser().parse(options, args);
+            if (cmd.hasOption("help")) {
+                new HelpFormatter().printHelp(USAGE, options);
+                return;
+            }
+
+            if (cmd.hasOption("serve")) {
+                serve(cmd);
+                return;
+            }
+
+            final List<GenerationTask> tasks;
+            if (cmd.hasOption("manifest")) {
+                tasks = BatchGenerator.readManifest(new File(cmd.getOptionValue("manifest")));
+            } else if (cmd.hasOption("input-spec") && cmd.hasOption("archive")) {
+                final GenerationTask task = new GenerationTask(cmd.getOptionValue("input-spec"), cmd.getOptionValue("output", "."));
+                task.setArchive(cmd.getOptionValue("archive"));
+                task.setArchiveFormat(cmd.getOptionValue("archive-format"));
+                tasks = Collections.singletonList(task);
+            } else if (cmd.hasOption("input-spec") && cmd.hasOption("output")) {
+                tasks = Collections.singletonList(
+                        new GenerationTask(cmd.getOptionValue("input-spec"), cmd.getOptionValue("output")));
+            } else {
+                throw new ParseException("either --manifest or --input-spec with --output or --archive is required");
+            }
+
+            if (tasks.stream().anyMatch(task -> ArchiveSink.STDOUT.equals(task.getArchive()))) {
+                // logs and the summary must not end up in the archive
+                System.setOut(System.err);
+            }
+
+            if (cmd.hasOption("incremental") || cmd.hasOption("watch")) {
+                for (GenerationTask task : tasks) {
+                    task.getOptions().putIfAbsent(Rails5Codegen.INCREMENTAL, Boolean.TRUE);
+                }
+            }
+            if (cmd.hasOption("diff-against")) {
+                for (GenerationTask task : tasks) {
+                    task.getOptions().putIfAbsent(Rails5Codegen.DIFF_AGAINST, cmd.getOptionValue("diff-against"));
+                }
+            }
+            if (cmd.hasOption("parallel")) {
+                final int parallelism = Integer.parseInt(cmd.getOptionValue("parallel"));
+                for (GenerationTask task : tasks) {
+                    task.getOptions().putIfAbsent(Rails5Codegen.PARALLELISM, parallelism);
+                }
+            }
+
+            final int threads = cmd.hasOption("threads")
+                    ? Integer.parseInt(cmd.getOptionValue("threads"))
+                    : Runtime.getRuntime().availableProcessors();
+
+            final Recording recording = cmd.hasOption("jfr") ? startRecording() : null;
+
+            final BatchGenerator generator = new BatchGenerator(threads);
+            if (cmd.hasOption("spec-cache")) {
+                generator.setSpecCache(new SpecCache(new File(cmd.getOptionValue("spec-cache"))));
+            }
+            final long start = System.nanoTime();
+            final List<GenerationResult> results = generator.run(tasks);
+            BatchGenerator.printSummary(results, System.nanoTime() - start, System.out);
+
+            if (recording != null) {
+                recording.dump(Paths.get(cmd.getOptionValue("jfr")));
+                recording.close();
+            }
+            if (cmd.hasOption("metrics")) {
+                BatchGenerator.writeMetricsReport(results, new File(cmd.getOptionValue("metrics")));
+            }
+
+            if (cmd.hasOption("watch")) {
+                final long debounce = cmd.hasOption("debounce")
+                        ? Long.parseLong(cmd.getOptionValue("debounce"))
+                        : SpecWatcher.DEFAULT_DEBOUNCE_MILLIS;
+                try (SpecWatcher watcher = new SpecWatcher(generator, tasks, debounce, System.out)) {
+                    System.out.println("watching for changes, press Ctrl+C to stop");
+                    watcher.run();
+                }
+                return;
+            }
+
+            if (results.stream().anyMatch(result -> !result.isSuccess())) {
+                System.exit(1);
+            }
+        } catch (ParseException e) {
+            System.err.println(e.getMessage());
+            new HelpFormatter().printHelp(USAGE, options);
+            System.exit(2);
         } catch (Exception e) {
             LOGGER.error(e.getMessage(), e);
+            System.exit(1);
+        }
+    }
+
+    private static void serve(CommandLine cmd) throws Exception {
+        final BatchGenerator generator = new BatchGenerator(1);
+        if (cmd.hasOption("spec-cache")) {
+            generator.setSpecCache(new SpecCache(new File(cmd.getOptionValue("spec-cache"))));
         }
+        final long cacheBytes = cmd.hasOption("cache-size")
+                ? Long.parseLong(cmd.getOptionValue("cache-size")) * 1024 * 1024
+                : GenerationServer.DEFAULT_CACHE_BYTES;
+
+        final GenerationServer server = new GenerationServer(generator, cacheBytes);
+        // only for tools on this machine
+        server.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), Integer.parseInt(cmd.getOptionValue("serve"))));
+        Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+        System.out.println("serving http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort()
+                + GenerationServer.GENERATE_PATH + ", press Ctrl+C to stop");
+    }
+
+    private static Recording startRecording() throws Exception {
+        final Recording recording = new Recording(Configuration.getConfiguration("profile"));
+        recording.enable(GenerationPhaseEvent.class);
+        recording.start();
+        return recording;
+    }
+
+    private static Options buildOptions() {
+        final Options options = new Options();
+        options.addOption(Option.builder("i").longOpt("input-spec").hasArg().argName("spec")
+                .desc("location of the OpenAPI spec, as URL or file").build());
+        options.addOption(Option.builder("o").longOpt("output").hasArg().argName("dir")
+                .desc("where to write the generated files").build());
+        options.addOption(Option.builder("a").longOpt("archive").hasArg().argName("file")
+                .desc("stream the generated files into this zip or tar file, - for stdout, instead of the output dir").build());
+        options.addOption(Option.builder().longOpt("archive-format").hasArg().argName("zip|tar")
+                .desc("format of --archive (default: by file extension, zip for stdout)").build());
+        options.addOption(Option.builder("m").longOpt("manifest").hasArg().argName("file")
+                .desc("YAML/JSON list of {spec, outputDir, options} entries to generate in one run").build());
+        options.addOption(Option.builder("t").longOpt("threads").hasArg().argName("count")
+                .desc("number of specs generated in parallel (default: available processors)").build());
+        options.addOption(Option.builder("p").longOpt("parallel").hasArg().argName("threads")
+                .desc("number of threads rendering the controllers of each spec (default: 1)").build());
+        options.addOption(Option.builder().longOpt("incremental")
+                .desc("only re-render controllers and routes whose spec fragments changed since the last run").build());
+        options.addOption(Option.builder().longOpt("diff-against").hasArg().argName("spec")
+                .desc("spec the output was generated from: report the changes since in .swagger-codegen/rails5-changes.json"
+                        + " and only re-render the controllers they affect").build());
+        options.addOption(Option.builder("w").longOpt("watch")
+                .desc("keep running and regenerate incrementally whenever a spec or template changes").build());
+        options.addOption(Option.builder().longOpt("debounce").hasArg().argName("millis")
+                .desc("with --watch, wait until files were quiet this long before regenerating (default: "
+                        + SpecWatcher.DEFAULT_DEBOUNCE_MILLIS + ")").build());
+        options.addOption(Option.builder().longOpt("spec-cache").hasArg().argName("dir")
+                .desc("keep parsed specs in this directory and skip parsing specs that did not change").build());
+        options.addOption(Option.builder().longOpt("serve").hasArg().argName("port")
+                .desc("run a local HTTP server generating POSTed GenerationRequests into zip or tar archives").build());
+        options.addOption(Option.builder().longOpt("cache-size").hasArg().argName("MB")
+                .desc("with --serve, total size of the archives kept for repeated requests (default: "
+                        + GenerationServer.DEFAULT_CACHE_BYTES / 1024 / 1024 + ")").build());
+        options.addOption(Option.builder().longOpt("metrics").hasArg().argName("file")
+                .desc("write wall time, CPU time and allocated bytes per phase, controller and template as JSON").build());
+        options.addOption(Option.builder().longOpt("jfr").hasArg().argName("file")
+                .desc("record the run, including generation phase events, into a JFR file").build());
+        options.addOption(Option.builder("h").longOpt("help").desc("print this message").build());
+        return options;
     }
 }
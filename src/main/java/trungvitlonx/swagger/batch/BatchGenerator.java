@@ -0,0 +1,189 @@
+package trungvitlonx.swagger.batch;
+
+import io.swagger.codegen.v3.ClientOptInput;
+import io.swagger.codegen.v3.config.CodegenConfigurator;
+import io.swagger.v3.core.util.Json;
+import io.swagger.v3.core.util.Yaml;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import trungvitlonx.swagger.generator.rails5.ArchiveSink;
+import trungvitlonx.swagger.generator.rails5.GenerationMetrics;
+import trungvitlonx.swagger.generator.rails5.OutputSink;
+import trungvitlonx.swagger.generator.rails5.Rails5Codegen;
+import trungvitlonx.swagger.generator.rails5.Rails5Generator;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs many {@link GenerationTask}s inside one JVM on a bounded worker pool.
+ *
+ * Every task gets its own configurator and therefore its own {@code Rails5Codegen}
+ * instance, so no generator state is shared between workers.
+ */
+public class BatchGenerator {
+    private static final Logger LOGGER = LoggerFactory.getLogger(BatchGenerator.class);
+
+    public static final String LANG = "rails5";
+
+    private final int threads;
+    private SpecCache specCache;
+
+    public BatchGenerator(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be at least 1, got " + threads);
+        }
+        this.threads = threads;
+    }
+
+    public SpecCache getSpecCache() {
+        return specCache;
+    }
+
+    /**
+     * Reads parsed specs from the given cache, null parses every spec.
+     */
+    public void setSpecCache(SpecCache specCache) {
+        this.specCache = specCache;
+    }
+
+    public static List<GenerationTask> readManifest(File manifest) throws IOException {
+        // JSON is valid YAML, so the YAML mapper reads both formats
+        return Yaml.mapper().readValue(manifest, new TypeReference<List<GenerationTask>>() {});
+    }
+
+    public List<GenerationResult> run(List<GenerationTask> tasks) throws InterruptedException {
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, Math.max(1, tasks.size())));
+        try {
+            final List<Future<GenerationResult>> futures = new ArrayList<>(tasks.size());
+            for (GenerationTask task : tasks) {
+                futures.add(executor.submit(() -> generate(task)));
+            }
+
+            final List<GenerationResult> results = new ArrayList<>(tasks.size());
+            for (Future<GenerationResult> future : futures) {
+                try {
+                    results.add(future.get());
+                } catch (ExecutionException e) {
+                    // generate() never throws, anything reaching here is a bug
+                    throw new IllegalStateException(e.getCause());
+                }
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    protected GenerationResult generate(GenerationTask task) {
+        if (task.getArchive() == null) {
+            return generate(task, null);
+        }
+
+        final long start = System.nanoTime();
+        try {
+            final ArchiveSink.Format format = task.getArchiveFormat() == null
+                    ? null
+                    : ArchiveSink.Format.valueOf(task.getArchiveFormat().toUpperCase(Locale.ROOT));
+            try (ArchiveSink sink = ArchiveSink.open(task.getArchive(), format)) {
+                return generate(task, sink);
+            }
+        } catch (Exception e) {
+            LOGGER.error("Failed to generate " + task, e);
+            return new GenerationResult(task, System.nanoTime() - start, 0, 0, 0, new GenerationMetrics(), e);
+        }
+    }
+
+    /**
+     * Generates one task into the given sink, or into its output directory if the sink is null.
+     * Never throws, failures are reported in the result.
+     */
+    public GenerationResult generate(GenerationTask task, OutputSink sink) {
+        final long start = System.nanoTime();
+        final GenerationMetrics metrics = new GenerationMetrics();
+        try {
+            final CodegenConfigurator configurator = new CodegenConfigurator()
+                    .setLang(LANG)
+                    .setInputSpecURL(task.getSpec())
+                    .setOutputDir(task.getOutputDir())
+                    .setAdditionalProperties(task.getOptions());
+
+            final ClientOptInput clientOptInput;
+            try (GenerationMetrics.Span span = metrics.start(GenerationMetrics.PARSE, task.getSpec())) {
+                clientOptInput = specCache == null
+                        ? configurator.toClientOptInput()
+                        : specCache.toClientOptInput(configurator, task.getSpec());
+            }
+            if (clientOptInput.getConfig() instanceof Rails5Codegen) {
+                ((Rails5Codegen) clientOptInput.getConfig()).setMetrics(metrics);
+            }
+
+            if (sink != null) {
+                ((Rails5Codegen) clientOptInput.getConfig()).setOutputSink(sink);
+            }
+
+            final Rails5Generator generator = new Rails5Generator();
+            generator.opts(clientOptInput).generate();
+            return new GenerationResult(task, System.nanoTime() - start,
+                    generator.getWritten(), generator.getSkipped(), generator.getDeleted(), metrics, null);
+        } catch (Exception e) {
+            LOGGER.error("Failed to generate " + task, e);
+            return new GenerationResult(task, System.nanoTime() - start, 0, 0, 0, metrics, e);
+        }
+    }
+
+    /**
+     * Writes the per-phase metrics of every result as one JSON document.
+     */
+    public static void writeMetricsReport(List<GenerationResult> results, File file) throws IOException {
+        final List<Map<String, Object>> report = new ArrayList<>(results.size());
+        for (GenerationResult result : results) {
+            final Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("spec", result.getTask().getSpec());
+            entry.put("outputDir", result.getTask().getOutputDir());
+            entry.put("success", result.isSuccess());
+            entry.put("elapsedNanos", result.getElapsedNanos());
+            entry.put("phases", result.getMetrics().toReport());
+            report.add(entry);
+        }
+        Json.pretty().writeValue(file, report);
+    }
+
+    public static void printSummary(List<GenerationResult> results, long wallNanos, PrintStream out) {
+        long totalNanos = 0;
+        int failures = 0;
+        int written = 0;
+        int skipped = 0;
+        int deleted = 0;
+
+        for (GenerationResult result : results) {
+            totalNanos += result.getElapsedNanos();
+            written += result.getWritten();
+            skipped += result.getSkipped();
+            deleted += result.getDeleted();
+            if (result.isSuccess()) {
+                out.printf("%8d ms  %4d written %4d skipped %4d deleted  %s%n", result.getElapsedMillis(),
+                        result.getWritten(), result.getSkipped(), result.getDeleted(), result.getTask());
+            } else {
+                failures++;
+                out.printf("%8d ms  FAILED  %s: %s%n", result.getElapsedMillis(), result.getTask(), result.getError().getMessage());
+            }
+        }
+
+        out.printf("%d specs (%d failed), %d files written, %d skipped, %d deleted, %d ms wall, %d ms cumulative%n",
+                results.size(), failures, written, skipped, deleted, wallNanos / 1_000_000L, totalNanos / 1_000_000L);
+    }
+}
@@ -0,0 +1,64 @@
+package trungvitlonx.swagger.batch;
+
+import trungvitlonx.swagger.generator.rails5.GenerationMetrics;
+
+/**
+ * Outcome of a {@link GenerationTask}: how long it took, where the time went and what happened
+ * to its output files.
+ */
+public class GenerationResult {
+    private final GenerationTask task;
+    private final long elapsedNanos;
+    private final int written;
+    private final int skipped;
+    private final int deleted;
+    private final GenerationMetrics metrics;
+    private final Exception error;
+
+    public GenerationResult(GenerationTask task, long elapsedNanos, int written, int skipped, int deleted,
+            GenerationMetrics metrics, Exception error) {
+        this.task = task;
+        this.elapsedNanos = elapsedNanos;
+        this.written = written;
+        this.skipped = skipped;
+        this.deleted = deleted;
+        this.metrics = metrics;
+        this.error = error;
+    }
+
+    public GenerationTask getTask() {
+        return task;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedNanos / 1_000_000L;
+    }
+
+    public int getWritten() {
+        return written;
+    }
+
+    public int getSkipped() {
+        return skipped;
+    }
+
+    public int getDeleted() {
+        return deleted;
+    }
+
+    public GenerationMetrics getMetrics() {
+        return metrics;
+    }
+
+    public Exception getError() {
+        return error;
+    }
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+}
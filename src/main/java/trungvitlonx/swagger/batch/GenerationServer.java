@@ -0,0 +1,464 @@
+package trungvitlonx.swagger.batch;
+
+import io.swagger.codegen.v3.service.GenerationRequest;
+import io.swagger.v3.core.util.Json;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import trungvitlonx.swagger.generator.rails5.ArchiveSink;
+import trungvitlonx.swagger.generator.rails5.GenerationMetrics;
+import trungvitlonx.swagger.generator.rails5.InputDigester;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Local HTTP server generating rails5 stubs, so tools asking for the same spec share one run
+ * instead of each paying for a JVM start and a full generation.
+ *
+ * {@code POST /generate} takes a {@link GenerationRequest} as JSON, with the spec inline or as a
+ * {@code specURL}, and answers with the generated files as a zip, or as a tar with
+ * {@code ?format=tar}. Of its options only the additional properties apply, the output
+ * directory is ignored. {@code GET /metrics} reports request latency, cache hit rates and the
+ * accumulated {@link GenerationMetrics} as JSON.
+ *
+ * A request is keyed by the content of its spec, including every local file it refers to, its
+ * options and the archive format. Identical requests arriving while one is generated wait for
+ * that generation instead of starting their own, finished archives are kept in an LRU cache
+ * bounded by their total size. Specs that cannot be hashed, such as remote URLs, are generated
+ * for every request. Failures are shared with the waiting requests but never cached.
+ *
+ * Every exchange is handled on its own virtual thread. CPU time and allocations cannot be
+ * measured on those, so the generation metrics only carry wall times.
+ */
+public class GenerationServer implements Closeable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(GenerationServer.class);
+
+    public static final String GENERATE_PATH = "/generate";
+    public static final String METRICS_PATH = "/metrics";
+    public static final String CACHE_HEADER = "X-Generation-Cache";
+    public static final String HIT = "hit";
+    public static final String COALESCED = "coalesced";
+    public static final String MISS = "miss";
+    public static final String UNCACHEABLE = "uncacheable";
+    public static final long DEFAULT_CACHE_BYTES = 256L * 1024 * 1024;
+
+    // latencies kept for the percentiles, the most recent ones
+    private static final int LATENCY_SAMPLES = 4096;
+    private static final ObjectWriter SORTED = Json.mapper().writer().with(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS);
+
+    private final BatchGenerator generator;
+    private final ArchiveCache cache;
+    private final ConcurrentMap<String, CompletableFuture<byte[]>> inFlight = new ConcurrentHashMap<>();
+    private final GenerationMetrics generationMetrics = new GenerationMetrics();
+    private final Latency latency = new Latency();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder uncacheable = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final AtomicLong outputs = new AtomicLong();
+    // generations currently using an inline spec file
+    private final Map<Path, Integer> specUsers = new HashMap<>();
+    private final Path workDirectory;
+    private HttpServer server;
+    private ExecutorService executor;
+
+    public GenerationServer(BatchGenerator generator, long cacheBytes) throws IOException {
+        this.generator = generator;
+        this.cache = new ArchiveCache(cacheBytes);
+        this.workDirectory = Files.createTempDirectory("rails5-generation-server");
+    }
+
+    public void start(InetSocketAddress address) throws IOException {
+        server = HttpServer.create(address, 0);
+        server.createContext(GENERATE_PATH, this::handleGenerate);
+        server.createContext(METRICS_PATH, this::handleMetrics);
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.start();
+        LOGGER.info("generation server listening on " + getAddress());
+    }
+
+    /**
+     * Address the server is bound to, with the actual port if it was started on port 0.
+     */
+    public InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+
+    @Override
+    public void close() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdown();
+            server = null;
+        }
+        FileUtils.deleteQuietly(workDirectory.toFile());
+    }
+
+    /**
+     * Archive of the generated files for a request, from the cache or from the running
+     * generation of an identical request if there is one.
+     */
+    public Generated generate(GenerationRequest request, ArchiveSink.Format format) throws Exception {
+        if (request.getLang() != null && !BatchGenerator.LANG.equals(request.getLang())) {
+            throw new IllegalArgumentException("only " + BatchGenerator.LANG + " is generated, not " + request.getLang());
+        }
+
+        final Map<String, Object> options = request.getOptions() == null || request.getOptions().getAdditionalProperties() == null
+                ? Collections.emptyMap()
+                : request.getOptions().getAdditionalProperties();
+        final byte[] inlineSpec = request.getSpec() == null ? null : Json.mapper().writeValueAsBytes(request.getSpec());
+        if (inlineSpec == null && StringUtils.isBlank(request.getSpecURL())) {
+            throw new IllegalArgumentException("either spec or specURL is required");
+        }
+        final GenerationTask task = new GenerationTask(inlineSpec == null ? request.getSpecURL() : null,
+                workDirectory.resolve("output-" + outputs.incrementAndGet()).toString());
+        task.getOptions().putAll(options);
+
+        final String key = key(task, inlineSpec, format);
+        if (key == null) {
+            uncacheable.increment();
+            return new Generated(render(task, inlineSpec, format), UNCACHEABLE);
+        }
+
+        byte[] archive = cache.get(key);
+        if (archive != null) {
+            hits.increment();
+            return new Generated(archive, HIT);
+        }
+
+        final CompletableFuture<byte[]> generation = new CompletableFuture<>();
+        final CompletableFuture<byte[]> running = inFlight.putIfAbsent(key, generation);
+        if (running != null) {
+            coalesced.increment();
+            try {
+                return new Generated(running.get(), COALESCED);
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+            }
+        }
+
+        try {
+            // an identical generation may have finished since the lookup above
+            archive = cache.get(key);
+            final String source;
+            if (archive != null) {
+                hits.increment();
+                source = HIT;
+            } else {
+                misses.increment();
+                archive = render(task, inlineSpec, format);
+                cache.put(key, archive);
+                source = MISS;
+            }
+            generation.complete(archive);
+            return new Generated(archive, source);
+        } catch (Exception e) {
+            generation.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, generation);
+        }
+    }
+
+    /**
+     * Request counts, cache hit rates, latency percentiles in milliseconds and the per-phase
+     * generation metrics summed over every generation.
+     */
+    public Map<String, Object> toReport() {
+        final long hitCount = hits.sum();
+        final long coalescedCount = coalesced.sum();
+        final long lookups = hitCount + coalescedCount + misses.sum();
+
+        final Map<String, Object> cacheReport = new LinkedHashMap<>();
+        cacheReport.put("hits", hitCount);
+        cacheReport.put("coalesced", coalescedCount);
+        cacheReport.put("misses", misses.sum());
+        cacheReport.put("uncacheable", uncacheable.sum());
+        cacheReport.put("hitRate", lookups == 0 ? 0.0 : (double) hitCount / lookups);
+        cacheReport.put("coalescedRate", lookups == 0 ? 0.0 : (double) coalescedCount / lookups);
+        cacheReport.put("entries", cache.size());
+        cacheReport.put("bytes", cache.bytes());
+        cacheReport.put("maxBytes", cache.maxBytes);
+
+        final Map<String, Object> report = new LinkedHashMap<>();
+        report.put("requests", latency.count());
+        report.put("errors", errors.sum());
+        report.put("cache", cacheReport);
+        report.put("latency", latency.toReport());
+        report.put("generation", generationMetrics.toReport());
+        return report;
+    }
+
+    /**
+     * Hash over everything the archive depends on, or null if the spec cannot be hashed. An
+     * inline spec is hashed as sent, a spec file along with every local file it refers to.
+     */
+    protected String key(GenerationTask task, byte[] inlineSpec, ArchiveSink.Format format) throws JsonProcessingException {
+        final String content;
+        if (inlineSpec != null) {
+            content = InputDigester.digest(inlineSpec);
+        } else {
+            final File spec = new File(task.getSpec());
+            content = spec.isFile() ? SpecCache.digestContent(spec) : null;
+        }
+        if (content == null) {
+            return null;
+        }
+
+        final Map<String, String> inputs = new TreeMap<>();
+        inputs.put("spec", content);
+        inputs.put("options", SORTED.writeValueAsString(task.getOptions()));
+        inputs.put("format", format.name());
+        return InputDigester.digest(inputs);
+    }
+
+    Path getWorkDirectory() {
+        return workDirectory;
+    }
+
+    private byte[] render(GenerationTask task, byte[] inlineSpec, ArchiveSink.Format format) throws Exception {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final GenerationResult result;
+        final Path spec = inlineSpec == null ? null : acquireSpec(inlineSpec);
+        try (ArchiveSink sink = new ArchiveSink(out, format)) {
+            if (spec != null) {
+                task.setSpec(spec.toString());
+            }
+            result = generator.generate(task, sink);
+        } finally {
+            if (spec != null) {
+                releaseSpec(spec);
+            }
+        }
+        generationMetrics.addAll(result.getMetrics());
+        if (!result.isSuccess()) {
+            throw result.getError();
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * File of an inline spec for the duration of a generation, named by its content so that
+     * identical specs share their spec cache entry. Deleted once its last generation finished.
+     */
+    private Path acquireSpec(byte[] content) throws IOException {
+        final Path spec = workDirectory.resolve(InputDigester.digest(content) + ".json");
+        synchronized (specUsers) {
+            if (specUsers.merge(spec, 1, Integer::sum) == 1) {
+                try {
+                    Files.write(spec, content);
+                } catch (IOException e) {
+                    specUsers.remove(spec);
+                    throw e;
+                }
+            }
+        }
+        return spec;
+    }
+
+    private void releaseSpec(Path spec) throws IOException {
+        synchronized (specUsers) {
+            if (specUsers.compute(spec, (path, users) -> users == 1 ? null : users - 1) == null) {
+                Files.deleteIfExists(spec);
+            }
+        }
+    }
+
+    private void handleGenerate(HttpExchange exchange) throws IOException {
+        final long start = System.nanoTime();
+        try {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                respond(exchange, 405, "POST a GenerationRequest as JSON");
+                return;
+            }
+
+            final ArchiveSink.Format format;
+            final GenerationRequest request;
+            try (InputStream in = exchange.getRequestBody()) {
+                format = formatOf(exchange.getRequestURI().getQuery());
+                request = Json.mapper().readValue(in, GenerationRequest.class);
+            }
+
+            final Generated generated = generate(request, format);
+            exchange.getResponseHeaders().set("Content-Type", format == ArchiveSink.Format.TAR ? "application/x-tar" : "application/zip");
+            exchange.getResponseHeaders().set(CACHE_HEADER, generated.getSource());
+            exchange.sendResponseHeaders(200, generated.getArchive().length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(generated.getArchive());
+            }
+        } catch (IllegalArgumentException | JsonProcessingException e) {
+            errors.increment();
+            respond(exchange, 400, e.getMessage());
+        } catch (Exception e) {
+            errors.increment();
+            LOGGER.error("Failed to generate for " + exchange.getRemoteAddress(), e);
+            respond(exchange, 500, String.valueOf(e.getMessage()));
+        } finally {
+            latency.record(System.nanoTime() - start);
+            exchange.close();
+        }
+    }
+
+    private void handleMetrics(HttpExchange exchange) throws IOException {
+        try {
+            final byte[] body = Json.pretty().writeValueAsBytes(toReport());
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static ArchiveSink.Format formatOf(String query) {
+        if (query != null) {
+            for (String parameter : query.split("&")) {
+                if (parameter.startsWith("format=")) {
+                    return ArchiveSink.Format.valueOf(parameter.substring("format=".length()).toUpperCase(Locale.ROOT));
+                }
+            }
+        }
+        return ArchiveSink.Format.ZIP;
+    }
+
+    private static void respond(HttpExchange exchange, int status, String message) throws IOException {
+        final byte[] body = (message + "\n").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    /**
+     * Archive of one request and where it came from: {@link #HIT}, {@link #COALESCED},
+     * {@link #MISS} or {@link #UNCACHEABLE}.
+     */
+    public static class Generated {
+        private final byte[] archive;
+        private final String source;
+
+        Generated(byte[] archive, String source) {
+            this.archive = archive;
+            this.source = source;
+        }
+
+        public byte[] getArchive() {
+            return archive;
+        }
+
+        public String getSource() {
+            return source;
+        }
+    }
+
+    /**
+     * Least recently used archives up to a total size, an archive larger than that is not kept.
+     */
+    private static class ArchiveCache {
+        private final long maxBytes;
+        private final LinkedHashMap<String, byte[]> entries = new LinkedHashMap<>(16, 0.75f, true);
+        private long bytes;
+
+        ArchiveCache(long maxBytes) {
+            this.maxBytes = maxBytes;
+        }
+
+        synchronized byte[] get(String key) {
+            return entries.get(key);
+        }
+
+        synchronized void put(String key, byte[] archive) {
+            if (archive.length > maxBytes) {
+                return;
+            }
+            final byte[] previous = entries.put(key, archive);
+            bytes += archive.length - (previous == null ? 0 : previous.length);
+            for (Iterator<byte[]> eldest = entries.values().iterator(); bytes > maxBytes && eldest.hasNext(); ) {
+                bytes -= eldest.next().length;
+                eldest.remove();
+            }
+        }
+
+        synchronized int size() {
+            return entries.size();
+        }
+
+        synchronized long bytes() {
+            return bytes;
+        }
+    }
+
+    private static class Latency {
+        private final long[] samples = new long[LATENCY_SAMPLES];
+        private long count;
+        private long totalNanos;
+        private long maxNanos;
+
+        synchronized void record(long nanos) {
+            samples[(int) (count % LATENCY_SAMPLES)] = nanos;
+            count++;
+            totalNanos += nanos;
+            maxNanos = Math.max(maxNanos, nanos);
+        }
+
+        synchronized long count() {
+            return count;
+        }
+
+        synchronized Map<String, Object> toReport() {
+            final long[] sorted = Arrays.copyOf(samples, (int) Math.min(count, LATENCY_SAMPLES));
+            Arrays.sort(sorted);
+
+            final Map<String, Object> report = new LinkedHashMap<>();
+            report.put("count", count);
+            report.put("meanMillis", count == 0 ? 0.0 : totalNanos / 1e6 / count);
+            report.put("p50Millis", percentile(sorted, 0.50));
+            report.put("p95Millis", percentile(sorted, 0.95));
+            report.put("p99Millis", percentile(sorted, 0.99));
+            report.put("maxMillis", maxNanos / 1e6);
+            return report;
+        }
+
+        private static double percentile(long[] sorted, double rank) {
+            return sorted.length == 0 ? 0.0 : sorted[(int) Math.ceil(rank * sorted.length) - 1] / 1e6;
+        }
+    }
+}
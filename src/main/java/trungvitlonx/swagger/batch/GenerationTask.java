@@ -0,0 +1,75 @@
+package trungvitlonx.swagger.batch;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A single entry of a batch manifest: one spec rendered into one output directory, or streamed
+ * into an archive.
+ */
+public class GenerationTask {
+    private String spec;
+    private String outputDir;
+    private String archive;
+    private String archiveFormat;
+    private Map<String, Object> options = new LinkedHashMap<>();
+
+    public GenerationTask() {}
+
+    public GenerationTask(String spec, String outputDir) {
+        this.spec = spec;
+        this.outputDir = outputDir;
+    }
+
+    public String getSpec() {
+        return spec;
+    }
+
+    public void setSpec(String spec) {
+        this.spec = spec;
+    }
+
+    public String getOutputDir() {
+        return outputDir;
+    }
+
+    public void setOutputDir(String outputDir) {
+        this.outputDir = outputDir;
+    }
+
+    /**
+     * Zip or tar file, or {@code -} for stdout, the generated files are streamed into instead of
+     * the output directory. Null writes to the output directory.
+     */
+    public String getArchive() {
+        return archive;
+    }
+
+    public void setArchive(String archive) {
+        this.archive = archive;
+    }
+
+    /**
+     * {@code zip} or {@code tar}, null to pick it by the extension of the archive.
+     */
+    public String getArchiveFormat() {
+        return archiveFormat;
+    }
+
+    public void setArchiveFormat(String archiveFormat) {
+        this.archiveFormat = archiveFormat;
+    }
+
+    public Map<String, Object> getOptions() {
+        return options;
+    }
+
+    public void setOptions(Map<String, Object> options) {
+        this.options = options == null ? new LinkedHashMap<>() : options;
+    }
+
+    @Override
+    public String toString() {
+        return spec + " -> " + (archive == null ? outputDir : archive);
+    }
+}
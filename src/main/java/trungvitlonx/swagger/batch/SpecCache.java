@@ -0,0 +1,201 @@
+package trungvitlonx.swagger.batch;
+
+import io.swagger.codegen.v3.ClientOptInput;
+import io.swagger.codegen.v3.config.CodegenConfigurator;
+import io.swagger.v3.core.util.Json;
+import io.swagger.v3.oas.models.OpenAPI;
+import io.swagger.v3.parser.OpenAPIV3Parser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import trungvitlonx.swagger.generator.rails5.InputDigester;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * On-disk cache of parsed, resolved and flattened specs.
+ *
+ * An entry is keyed by the content of the spec, of every local file it refers to through
+ * {@code $ref}, the parse options and the parser version. It holds the model as gzipped JSON,
+ * written and read by the swagger-core mapper that already knows every model type. There is one
+ * entry per spec location, a changed spec replaces it. Specs loaded from a URL or referring to
+ * remote documents are not cached.
+ *
+ * {@link CodegenConfigurator} cannot set up a codegen without parsing, so on a hit it parses an
+ * empty document instead and the cached model is swapped in.
+ */
+public class SpecCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SpecCache.class);
+
+    // bump whenever the entry layout changes
+    private static final int FORMAT_VERSION = 1;
+    private static final String EMPTY_SPEC = "{\"openapi\":\"3.0.1\",\"info\":{\"title\":\"\",\"version\":\"\"},\"paths\":{}}";
+    private static final Pattern REF = Pattern.compile("\\$ref['\"]?\\s*:\\s*['\"]?([^'\"#\\s,}]*)");
+
+    private final File directory;
+    private int hits;
+    private int misses;
+
+    public SpecCache(File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * {@link CodegenConfigurator#toClientOptInput()}, with the model of {@code spec} read from the
+     * cache if nothing changed since it was stored.
+     */
+    public ClientOptInput toClientOptInput(CodegenConfigurator configurator, String spec) {
+        final File file = new File(spec);
+        final String key = file.isFile() ? key(file, configurator) : null;
+        if (key == null) {
+            return configurator.toClientOptInput();
+        }
+
+        final File entry = entry(file);
+        final OpenAPI cached = read(entry, key);
+        if (cached != null) {
+            synchronized (this) {
+                hits++;
+            }
+            final ClientOptInput input = configurator.setInputSpec(EMPTY_SPEC).toClientOptInput();
+            input.getConfig().setInputURL(spec);
+            return input.openAPI(cached);
+        }
+
+        synchronized (this) {
+            misses++;
+        }
+        final ClientOptInput input = configurator.toClientOptInput();
+        if (input.getOpenAPI() != null) {
+            write(entry, key, input.getOpenAPI());
+        }
+        return input;
+    }
+
+    public synchronized int getHits() {
+        return hits;
+    }
+
+    public synchronized int getMisses() {
+        return misses;
+    }
+
+    /**
+     * Hash over everything the parsed model depends on, or null if it cannot be cached.
+     */
+    protected String key(File spec, CodegenConfigurator configurator) {
+        final Map<String, String> inputs = new TreeMap<>();
+        inputs.put("format", String.valueOf(FORMAT_VERSION));
+        inputs.put("parser", String.valueOf(OpenAPIV3Parser.class.getPackage().getImplementationVersion()));
+        inputs.put("options", "resolveFully=" + configurator.isResolveFully()
+                + ",flattenInlineSchema=" + configurator.isFlattenInlineSchem()
+                + ",skipInlineModelMatches=" + configurator.getSkipInlineModelMatches());
+
+        final String content = digestContent(spec);
+        if (content == null) {
+            return null;
+        }
+        inputs.put("content", content);
+        return InputDigester.digest(inputs);
+    }
+
+    /**
+     * Hash over the content of a spec and of every local file it refers to, or null if it refers
+     * to remote documents or a file cannot be read.
+     */
+    static String digestContent(File spec) {
+        final Map<String, String> inputs = new TreeMap<>();
+        // referenced files may refer to further files, walk them all
+        final Deque<Path> pending = new ArrayDeque<>();
+        pending.push(spec.toPath().toAbsolutePath().normalize());
+        try {
+            while (!pending.isEmpty()) {
+                final Path path = pending.pop();
+                if (inputs.containsKey(path.toString())) {
+                    continue;
+                }
+                if (!Files.isRegularFile(path)) {
+                    return null;
+                }
+
+                final byte[] content = Files.readAllBytes(path);
+                inputs.put(path.toString(), InputDigester.digest(content));
+
+                final Matcher ref = REF.matcher(new String(content, StandardCharsets.UTF_8));
+                while (ref.find()) {
+                    final String location = ref.group(1);
+                    if (location.isEmpty()) {
+                        continue;
+                    }
+                    if (location.contains("://")) {
+                        LOGGER.debug("not caching " + spec + ", it refers to " + location);
+                        return null;
+                    }
+                    pending.push(path.resolveSibling(location).normalize());
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.warn("not caching " + spec + ": " + e.getMessage());
+            return null;
+        }
+        return InputDigester.digest(inputs);
+    }
+
+    private File entry(File spec) {
+        final String location = spec.getAbsoluteFile().toPath().normalize().toString();
+        return new File(directory, InputDigester.digest(location.getBytes(StandardCharsets.UTF_8)) + ".json.gz");
+    }
+
+    private OpenAPI read(File entry, String key) {
+        if (!entry.isFile()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new GZIPInputStream(new BufferedInputStream(Files.newInputStream(entry.toPath()))))) {
+            if (!key.equals(in.readUTF())) {
+                return null;
+            }
+            return Json.mapper().readValue((InputStream) in, OpenAPI.class);
+        } catch (IOException e) {
+            LOGGER.warn("ignoring unreadable spec cache entry " + entry + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void write(File entry, String key, OpenAPI openAPI) {
+        try {
+            Files.createDirectories(directory.toPath());
+            final Path tmp = Files.createTempFile(directory.toPath(), entry.getName(), ".tmp");
+            try {
+                try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp))))) {
+                    out.writeUTF(key);
+                    Json.mapper().writeValue((OutputStream) out, openAPI);
+                }
+                // concurrent writers of the same spec store the same model
+                Files.move(tmp, entry.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Could not cache " + entry + ": " + e.getMessage());
+        }
+    }
+}
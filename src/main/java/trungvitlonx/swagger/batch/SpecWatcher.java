@@ -0,0 +1,170 @@
+package trungvitlonx.swagger.batch;
+
+import io.swagger.codegen.v3.CodegenConstants;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the JVM, and with it the JIT and the compiled templates, warm and regenerates the tasks
+ * whose spec or template directory changed.
+ *
+ * A {@link WatchService} watches the directory of every spec, so specs split over several files
+ * are covered, and every custom template directory. Bursts of events, e.g. an editor writing a
+ * temp file and renaming it, are collected until nothing changed for the debounce interval.
+ * Tasks should run with {@code incremental} enabled so that only the changed controllers are
+ * re-rendered.
+ */
+public class SpecWatcher implements Closeable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SpecWatcher.class);
+
+    public static final long DEFAULT_DEBOUNCE_MILLIS = 150L;
+
+    private final BatchGenerator generator;
+    private final List<GenerationTask> tasks;
+    private final long debounceMillis;
+    private final PrintStream out;
+    private final WatchService watchService;
+    private final Map<GenerationTask, Path> specDirs = new IdentityHashMap<>();
+    private final Map<GenerationTask, Path> templateDirs = new IdentityHashMap<>();
+
+    public SpecWatcher(BatchGenerator generator, List<GenerationTask> tasks, long debounceMillis, PrintStream out)
+            throws IOException {
+        this.generator = generator;
+        this.tasks = tasks;
+        this.debounceMillis = debounceMillis;
+        this.out = out;
+        this.watchService = FileSystems.getDefault().newWatchService();
+
+        final Set<Path> directories = new LinkedHashSet<>();
+        for (GenerationTask task : tasks) {
+            final Path spec = specPath(task);
+            if (spec != null) {
+                specDirs.put(task, spec.getParent());
+                directories.add(spec.getParent());
+            }
+            final Path templates = templateDir(task);
+            if (templates != null) {
+                templateDirs.put(task, templates);
+                directories.add(templates);
+            }
+        }
+        for (Path directory : directories) {
+            directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+            LOGGER.info("watching " + directory);
+        }
+    }
+
+    /**
+     * Regenerates on every change until {@link #close()} is called or the thread is interrupted.
+     */
+    public void run() throws InterruptedException {
+        try {
+            while (true) {
+                final Set<Path> changed = new LinkedHashSet<>();
+                boolean overflow = collect(watchService.take(), changed);
+
+                // debounce: keep collecting until the directories are quiet
+                WatchKey key;
+                while ((key = watchService.poll(debounceMillis, TimeUnit.MILLISECONDS)) != null) {
+                    overflow |= collect(key, changed);
+                }
+
+                final List<GenerationTask> affected = overflow ? tasks : affectedTasks(changed);
+                if (!affected.isEmpty()) {
+                    final long start = System.nanoTime();
+                    final List<GenerationResult> results = generator.run(affected);
+                    BatchGenerator.printSummary(results, System.nanoTime() - start, out);
+                }
+            }
+        } catch (ClosedWatchServiceException e) {
+            // closed, stop watching
+        }
+    }
+
+    private static boolean collect(WatchKey key, Set<Path> changed) {
+        boolean overflow = false;
+        final Path directory = (Path) key.watchable();
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                overflow = true;
+            } else {
+                changed.add(directory.resolve((Path) event.context()));
+            }
+        }
+        key.reset();
+        return overflow;
+    }
+
+    /**
+     * Tasks whose spec directory had a spec file changed or whose template directory had a
+     * template changed. Anything else, e.g. the output of a task generated next to its spec,
+     * is ignored.
+     */
+    List<GenerationTask> affectedTasks(Set<Path> changed) {
+        final List<GenerationTask> affected = new ArrayList<>();
+        for (GenerationTask task : tasks) {
+            final Path specDir = specDirs.get(task);
+            final Path templateDir = templateDirs.get(task);
+            for (Path path : changed) {
+                final Path directory = path.getParent();
+                final String name = path.getFileName().toString();
+                if ((directory.equals(specDir) && isSpecFile(name))
+                        || (directory.equals(templateDir) && name.endsWith(".mustache"))) {
+                    affected.add(task);
+                    break;
+                }
+            }
+        }
+        return affected;
+    }
+
+    private static boolean isSpecFile(String name) {
+        return name.endsWith(".yaml") || name.endsWith(".yml") || name.endsWith(".json");
+    }
+
+    private static Path specPath(GenerationTask task) {
+        try {
+            final Path spec = Paths.get(task.getSpec()).toAbsolutePath().normalize();
+            // remote specs cannot be watched
+            return Files.isRegularFile(spec) ? spec : null;
+        } catch (InvalidPathException e) {
+            return null;
+        }
+    }
+
+    private static Path templateDir(GenerationTask task) {
+        final Object templateDir = task.getOptions().get(CodegenConstants.TEMPLATE_DIR);
+        if (templateDir == null) {
+            return null;
+        }
+        final Path path = Paths.get(templateDir.toString()).toAbsolutePath().normalize();
+        return Files.isDirectory(path) ? path : null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+    }
+}
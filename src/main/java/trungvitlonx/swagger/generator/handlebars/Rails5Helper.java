@@ -1,13 +1,59 @@
 package trungvitlonx.swagger.generator.handlebars;
 
+import com.github.jknack.handlebars.Handlebars;
+import com.github.jknack.handlebars.Options;
+import io.swagger.codegen.v3.CodegenOperation;
 import io.swagger.codegen.v3.CodegenParameter;
 
+import trungvitlonx.swagger.generator.rails5.BodySchemas;
+import trungvitlonx.swagger.generator.rails5.RouteTable;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
 public class Rails5Helper {
+    private static final String INDENT = "  ";
+    private static final Pattern LINE_START = Pattern.compile("(?m)^(?=.)");
+    private static final Pattern SYMBOL_KEY = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*");
+
     public Rails5Helper() {}
 
-    public CharSequence bodyParamFields(CodegenParameter param) {
-        StringBuilder builder = new StringBuilder();
-        
-        return builder;
+    /**
+     * The {@code config/schemas} file of a controller.
+     */
+    public String bodySchemaDocument(List<CodegenOperation> operations) throws IOException {
+        return BodySchemas.document(operations);
+    }
+
+    /**
+     * The {@code routeScopes} of a single operation group, for a route file of its own.
+     */
+    public Map<String, Object> groupRoutes(Map<String, Object> group) {
+        return Collections.singletonMap("routeScopes", RouteTable.of(Collections.singletonList(group)).getScopes());
+    }
+
+    /**
+     * Name of the schema constant of an operation, e.g. {@code SHOW_PARAMS}.
+     */
+    public String paramsConstant(CodegenOperation operation) {
+        return RouteTable.action(operation).toUpperCase() + "_PARAMS";
+    }
+
+    /**
+     * Indents every line of the block by one level. A partial that includes itself cannot rely
+     * on the indentation of a standalone partial tag, it is only applied once per partial.
+     */
+    public CharSequence indent(Object context, Options options) throws IOException {
+        return new Handlebars.SafeString(LINE_START.matcher(options.fn()).replaceAll(INDENT));
+    }
+
+    /**
+     * Key of a param in a {@code ParamsValidation.schema} hash, a symbol where Ruby allows it.
+     */
+    public String paramKey(CodegenParameter param) {
+        return SYMBOL_KEY.matcher(param.paramName).matches() ? param.paramName : '"' + param.paramName + '"';
     }
 }
@@ -0,0 +1,257 @@
+package trungvitlonx.swagger.generator.rails5;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Streams the generated files into a zip or tar archive instead of the output folder, written
+ * to a file or to stdout. Rendered content goes straight into the archive stream, entries are
+ * appended in the order files are generated.
+ *
+ * Entries carry a fixed timestamp so the same spec always yields the same archive bytes. Zip
+ * entries opened through {@link #open} are streamed while every other writer waits; tar headers
+ * need the size up front, so those are buffered until closed.
+ */
+public class ArchiveSink implements OutputSink {
+    public static final String STDOUT = "-";
+
+    // the earliest time zip can store, as local time so archives do not depend on the time zone
+    private static final LocalDateTime ENTRY_TIME = LocalDateTime.of(1980, 1, 1, 0, 0);
+    private static final int BUFFER_SIZE = 65536;
+    private static final int TAR_BLOCK = 512;
+
+    public enum Format {
+        ZIP, TAR;
+
+        /**
+         * Format of an archive location by its extension, zip unless it ends with {@code .tar}.
+         */
+        public static Format of(String location) {
+            return location.toLowerCase(Locale.ROOT).endsWith(".tar") ? TAR : ZIP;
+        }
+    }
+
+    private final Format format;
+    private final OutputStream out;
+    private final ZipOutputStream zip;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Set<String> entries = new HashSet<>();
+    private final boolean closeTarget;
+    private boolean entryOpen;
+
+    /**
+     * Archive written to {@code out}, closed along with the sink.
+     */
+    public ArchiveSink(OutputStream out, Format format) {
+        this(out, format, true);
+    }
+
+    private ArchiveSink(OutputStream out, Format format, boolean closeTarget) {
+        this.format = format;
+        this.out = new BufferedOutputStream(out, BUFFER_SIZE);
+        this.zip = format == Format.ZIP ? new ZipOutputStream(this.out, StandardCharsets.UTF_8) : null;
+        this.closeTarget = closeTarget;
+    }
+
+    /**
+     * Archive at a file path, or on stdout for {@value #STDOUT}. Stdout is the process' own, even
+     * if {@code System.out} was redirected so that logs do not end up in the archive.
+     *
+     * @param format null to pick it by the extension of {@code location}
+     */
+    public static ArchiveSink open(String location, Format format) throws IOException {
+        if (STDOUT.equals(location)) {
+            return new ArchiveSink(new FileOutputStream(FileDescriptor.out), format == null ? Format.ZIP : format, false);
+        }
+        return new ArchiveSink(new FileOutputStream(location), format == null ? Format.of(location) : format, true);
+    }
+
+    public Format getFormat() {
+        return format;
+    }
+
+    @Override
+    public void write(String path, byte[] content) throws IOException {
+        lock.lock();
+        try {
+            checkNoOpenEntry();
+            if (zip != null) {
+                putZipEntry(path);
+                zip.write(content);
+                zip.closeEntry();
+            } else {
+                writeTarEntry(path, content, content.length);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public OutputStream open(String path) throws IOException {
+        if (zip == null) {
+            return new ByteArrayOutputStream() {
+                private boolean closed;
+
+                @Override
+                public void close() throws IOException {
+                    if (!closed) {
+                        closed = true;
+                        lock.lock();
+                        try {
+                            checkNoOpenEntry();
+                            writeTarEntry(path, buf, count);
+                        } finally {
+                            lock.unlock();
+                        }
+                    }
+                }
+            };
+        }
+
+        lock.lock();
+        try {
+            checkNoOpenEntry();
+            putZipEntry(path);
+            entryOpen = true;
+        } catch (IOException | RuntimeException e) {
+            lock.unlock();
+            throw e;
+        }
+        return new FilterOutputStream(zip) {
+            private boolean closed;
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                zip.write(b, off, len);
+            }
+
+            @Override
+            public void flush() {
+                // the archive stream is flushed when the sink is closed
+            }
+
+            @Override
+            public void close() throws IOException {
+                if (!closed) {
+                    closed = true;
+                    try {
+                        entryOpen = false;
+                        zip.closeEntry();
+                    } finally {
+                        lock.unlock();
+                    }
+                }
+            }
+        };
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            checkNoOpenEntry();
+            if (zip != null) {
+                zip.finish();
+            } else {
+                // end of archive: two zero blocks
+                out.write(new byte[TAR_BLOCK * 2]);
+            }
+            out.flush();
+            if (closeTarget) {
+                out.close();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void checkNoOpenEntry() {
+        if (entryOpen) {
+            throw new IllegalStateException("an archive entry is still open");
+        }
+    }
+
+    private void putZipEntry(String path) throws IOException {
+        if (!entries.add(path)) {
+            throw new IOException("duplicate archive entry " + path);
+        }
+        final ZipEntry entry = new ZipEntry(path);
+        entry.setTimeLocal(ENTRY_TIME);
+        zip.putNextEntry(entry);
+    }
+
+    private void writeTarEntry(String path, byte[] content, int length) throws IOException {
+        if (!entries.add(path)) {
+            throw new IOException("duplicate archive entry " + path);
+        }
+
+        final byte[] header = new byte[TAR_BLOCK];
+        final byte[] name = path.getBytes(StandardCharsets.UTF_8);
+        // ustar splits long paths into a prefix of up to 155 and a name of up to 100 bytes
+        int split = -1;
+        if (name.length > 100) {
+            for (int i = name.length - 1; i >= 0; i--) {
+                if (name[i] == '/' && i <= 155 && name.length - i - 1 <= 100) {
+                    split = i;
+                    break;
+                }
+            }
+            if (split < 0) {
+                throw new IOException("path too long for a tar entry: " + path);
+            }
+            System.arraycopy(name, 0, header, 345, split);
+        }
+        System.arraycopy(name, split + 1, header, 0, name.length - split - 1);
+
+        octal(header, 100, 8, 0644);
+        octal(header, 108, 8, 0);
+        octal(header, 116, 8, 0);
+        octal(header, 124, 12, length);
+        octal(header, 136, 12, ENTRY_TIME.toEpochSecond(ZoneOffset.UTC));
+        header[156] = '0';
+        System.arraycopy("ustar\u000000".getBytes(StandardCharsets.US_ASCII), 0, header, 257, 8);
+
+        // the checksum is computed with its own field set to spaces
+        for (int i = 148; i < 156; i++) {
+            header[i] = ' ';
+        }
+        int checksum = 0;
+        for (byte b : header) {
+            checksum += b & 0xff;
+        }
+        octal(header, 148, 7, checksum);
+
+        out.write(header);
+        out.write(content, 0, length);
+        final int padding = (TAR_BLOCK - length % TAR_BLOCK) % TAR_BLOCK;
+        out.write(new byte[padding]);
+    }
+
+    /**
+     * Zero-padded octal number terminated by NUL, filling {@code length} bytes.
+     */
+    private static void octal(byte[] header, int offset, int length, long value) {
+        final String digits = Long.toOctalString(value);
+        final int width = length - 1;
+        for (int i = 0; i < width; i++) {
+            final int digit = i - (width - digits.length());
+            header[offset + i] = (byte) (digit < 0 ? '0' : digits.charAt(digit));
+        }
+        header[offset + width] = 0;
+    }
+}
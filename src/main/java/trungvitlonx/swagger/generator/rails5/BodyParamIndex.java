@@ -0,0 +1,142 @@
+package trungvitlonx.swagger.generator.rails5;
+
+import io.swagger.codegen.v3.CodegenModelFactory;
+import io.swagger.codegen.v3.CodegenModelType;
+import io.swagger.codegen.v3.CodegenParameter;
+import io.swagger.codegen.v3.generators.util.OpenAPIUtil;
+import io.swagger.v3.oas.models.OpenAPI;
+import io.swagger.v3.oas.models.media.ObjectSchema;
+import io.swagger.v3.oas.models.media.Schema;
+import io.swagger.v3.oas.models.parameters.Parameter;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Flattened request body fields per component schema, built at most once per schema and
+ * shared by every operation using that schema as its body.
+ *
+ * Properties referring to object schemas, through {@code $ref} or inline, become nested
+ * {@code Hash} parameters carrying their own fields in {@link #FIELDS_EXTENSION}. A schema
+ * referring back to one of its ancestors is cut off there and only validated as a Hash.
+ *
+ * Lookups are synchronized, operation groups post-processed in parallel share one index.
+ */
+public class BodyParamIndex {
+    public static final String FIELDS_EXTENSION = "x-rails5-fields";
+
+    private static final int NO_CYCLE = Integer.MAX_VALUE;
+
+    private final OpenAPI openAPI;
+    private final Map<String, Schema> schemas;
+    private final Rails5Codegen codegen;
+    private final Map<String, List<CodegenParameter>> fieldsBySchema = new HashMap<>();
+    private final Set<String> imports = new HashSet<>();
+
+    public BodyParamIndex(OpenAPI openAPI, Rails5Codegen codegen) {
+        this.openAPI = openAPI;
+        this.schemas = openAPI.getComponents() == null || openAPI.getComponents().getSchemas() == null
+                ? Collections.emptyMap()
+                : openAPI.getComponents().getSchemas();
+        this.codegen = codegen;
+    }
+
+    public boolean isFor(OpenAPI openAPI) {
+        return this.openAPI == openAPI;
+    }
+
+    /**
+     * @return the fields of the given schema, or {@code null} if there is no such schema
+     */
+    public synchronized List<CodegenParameter> get(String schemaName) {
+        if (schemaName == null || !schemas.containsKey(schemaName)) {
+            return null;
+        }
+        return fieldsOf(schemaName, new LinkedHashMap<>(), new int[] {NO_CYCLE});
+    }
+
+    /**
+     * @param path schema names currently being expanded, mapped to their depth
+     * @param cycleDepth lowest depth of an ancestor a cycle was cut at, updated for the caller
+     */
+    private List<CodegenParameter> fieldsOf(String schemaName, Map<String, Integer> path, int[] cycleDepth) {
+        final List<CodegenParameter> cached = fieldsBySchema.get(schemaName);
+        if (cached != null) {
+            return cached;
+        }
+
+        final int depth = path.size();
+        final int[] nestedCycleDepth = {NO_CYCLE};
+        path.put(schemaName, depth);
+        final List<CodegenParameter> fields = fieldsOf(schemas.get(schemaName), path, nestedCycleDepth);
+        path.remove(schemaName);
+
+        // an expansion cut at one of our ancestors depends on how we were reached
+        if (nestedCycleDepth[0] >= depth) {
+            fieldsBySchema.put(schemaName, fields);
+        }
+        cycleDepth[0] = Math.min(cycleDepth[0], nestedCycleDepth[0]);
+        return fields;
+    }
+
+    private List<CodegenParameter> fieldsOf(Schema<?> schema, Map<String, Integer> path, int[] cycleDepth) {
+        final Map<String, Schema> properties = schema == null ? null : schema.getProperties();
+        if (properties == null || properties.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        final List<CodegenParameter> fields = new ArrayList<>(properties.size());
+        for (Map.Entry<String, Schema> entry : properties.entrySet()) {
+            final String key = entry.getKey();
+            final Schema property = entry.getValue();
+            final boolean required = schema.getRequired() != null && schema.getRequired().contains(key);
+
+            if (StringUtils.isNotBlank(property.get$ref())) {
+                final String schemaName = OpenAPIUtil.getSimpleRef(property.get$ref());
+                final Schema subSchema = schemas.get(schemaName);
+
+                if (!isObject(subSchema)) {
+                    fields.add(leaf(key, required, subSchema == null ? property : subSchema));
+                } else if (path.containsKey(schemaName)) {
+                    cycleDepth[0] = Math.min(cycleDepth[0], path.get(schemaName));
+                    fields.add(hash(key, required, Collections.emptyList()));
+                } else {
+                    fields.add(hash(key, required, fieldsOf(schemaName, path, cycleDepth)));
+                }
+            } else if (isObject(property)) {
+                fields.add(hash(key, required, fieldsOf(property, path, cycleDepth)));
+            } else {
+                fields.add(leaf(key, required, property));
+            }
+        }
+        return Collections.unmodifiableList(fields);
+    }
+
+    private CodegenParameter leaf(String name, boolean required, Schema schema) {
+        final Parameter parameter = new Parameter().name(name).required(required).schema(schema);
+        return codegen.fromParameter(parameter, imports);
+    }
+
+    private CodegenParameter hash(String name, boolean required, List<CodegenParameter> fields) {
+        final CodegenParameter parameter = CodegenModelFactory.newInstance(CodegenModelType.PARAMETER);
+        parameter.baseName = name;
+        parameter.paramName = codegen.toParamName(name);
+        parameter.dataType = "Hash";
+        parameter.baseType = "Hash";
+        parameter.required = required;
+        parameter.getVendorExtensions().put(FIELDS_EXTENSION, fields);
+        return parameter;
+    }
+
+    private static boolean isObject(Schema schema) {
+        return schema instanceof ObjectSchema
+                || (schema != null && schema.getProperties() != null && !schema.getProperties().isEmpty());
+    }
+}
@@ -0,0 +1,197 @@
+package trungvitlonx.swagger.generator.rails5;
+
+import io.swagger.codegen.v3.CodegenOperation;
+import io.swagger.v3.core.util.Json;
+import io.swagger.v3.oas.models.OpenAPI;
+import io.swagger.v3.oas.models.Operation;
+import io.swagger.v3.oas.models.PathItem;
+import io.swagger.v3.oas.models.media.MediaType;
+import io.swagger.v3.oas.models.media.Schema;
+import io.swagger.v3.oas.models.parameters.RequestBody;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * JSON Schemas of JSON request bodies, checked by the {@code BodyValidation} concern.
+ *
+ * Each body schema is translated from OpenAPI to draft-04, the JSON Schema dialect OpenAPI 3.0
+ * extends: OpenAPI-only keywords are dropped, {@code nullable} becomes a {@code null} type and
+ * read-only properties are left out since clients do not send them. Component schemas are
+ * inlined; a schema referring to itself is moved to {@code definitions} instead.
+ */
+public class BodySchemas {
+    public static final String EXTENSION = "x-rails5-body-schema";
+
+    private static final String REF_PREFIX = "#/components/schemas/";
+    private static final String DRAFT_04 = "http://json-schema.org/draft-04/schema#";
+    private static final Set<String> KEYWORDS = new HashSet<>(Arrays.asList(
+            "type", "format", "title", "description", "default", "enum", "multipleOf", "maximum",
+            "exclusiveMaximum", "minimum", "exclusiveMinimum", "maxLength", "minLength", "pattern",
+            "maxItems", "minItems", "uniqueItems", "maxProperties", "minProperties", "required"));
+    private static final List<String> SCHEMA_LISTS = Arrays.asList("allOf", "anyOf", "oneOf");
+
+    private final OpenAPI openAPI;
+    private final Map<String, Schema> schemas;
+    private final ConcurrentMap<String, JsonNode> trees = new ConcurrentHashMap<>();
+
+    public BodySchemas(OpenAPI openAPI) {
+        this.openAPI = openAPI;
+        this.schemas = openAPI.getComponents() == null || openAPI.getComponents().getSchemas() == null
+                ? Collections.emptyMap()
+                : openAPI.getComponents().getSchemas();
+    }
+
+    /**
+     * Entry of an operation in the schema file of its controller, {@code required} and
+     * {@code schema}, or null if it takes no JSON body.
+     */
+    public ObjectNode of(CodegenOperation operation) {
+        final RequestBody requestBody = requestBodyOf(operation);
+        if (requestBody == null || requestBody.getContent() == null) {
+            return null;
+        }
+
+        Schema schema = null;
+        for (Map.Entry<String, MediaType> content : requestBody.getContent().entrySet()) {
+            if (content.getKey().contains("json") && content.getValue().getSchema() != null) {
+                schema = content.getValue().getSchema();
+                break;
+            }
+        }
+        if (schema == null) {
+            return null;
+        }
+
+        final ObjectNode definitions = Json.mapper().createObjectNode();
+        final ObjectNode converted = Json.mapper().createObjectNode();
+        converted.put("$schema", DRAFT_04);
+        converted.setAll(convert(Json.mapper().valueToTree(schema), new ArrayDeque<>(), definitions));
+        if (definitions.size() > 0) {
+            converted.set("definitions", definitions);
+        }
+
+        final ObjectNode entry = Json.mapper().createObjectNode();
+        entry.put("required", Boolean.TRUE.equals(requestBody.getRequired()));
+        entry.set("schema", converted);
+        return entry;
+    }
+
+    /**
+     * The schema file of a controller: the entries of its operations, keyed by action.
+     */
+    public static String document(List<CodegenOperation> operations) throws JsonProcessingException {
+        final ObjectNode document = Json.mapper().createObjectNode();
+        for (CodegenOperation operation : operations) {
+            final Object entry = operation.getVendorExtensions().get(EXTENSION);
+            if (entry instanceof JsonNode) {
+                document.set(RouteTable.action(operation), (JsonNode) entry);
+            }
+        }
+        return Json.pretty().writeValueAsString(document) + "\n";
+    }
+
+    private RequestBody requestBodyOf(CodegenOperation operation) {
+        final PathItem path = openAPI.getPaths() == null ? null : openAPI.getPaths().get(operation.path);
+        if (path == null) {
+            return null;
+        }
+        final Operation source = path.readOperationsMap().get(PathItem.HttpMethod.valueOf(operation.httpMethod.toUpperCase()));
+        RequestBody requestBody = source == null ? null : source.getRequestBody();
+        if (requestBody != null && requestBody.get$ref() != null && openAPI.getComponents() != null
+                && openAPI.getComponents().getRequestBodies() != null) {
+            final String ref = requestBody.get$ref();
+            requestBody = openAPI.getComponents().getRequestBodies().get(ref.substring(ref.lastIndexOf('/') + 1));
+        }
+        return requestBody;
+    }
+
+    private ObjectNode convert(JsonNode schema, Deque<String> inlining, ObjectNode definitions) {
+        final ObjectNode result = Json.mapper().createObjectNode();
+
+        final JsonNode ref = schema.get("$ref");
+        if (ref != null) {
+            final String name = ref.asText().startsWith(REF_PREFIX) ? ref.asText().substring(REF_PREFIX.length()) : null;
+            if (name == null || !schemas.containsKey(name)) {
+                // unknown to this spec, accept anything
+                return result;
+            }
+            final JsonNode target = trees.computeIfAbsent(name, key -> Json.mapper().valueToTree(schemas.get(key)));
+            if (inlining.contains(name)) {
+                if (!definitions.has(name)) {
+                    definitions.putObject(name);
+                    definitions.set(name, convert(target, new ArrayDeque<>(Collections.singleton(name)), definitions));
+                }
+                return result.put("$ref", "#/definitions/" + name);
+            }
+            inlining.push(name);
+            result.setAll(convert(target, inlining, definitions));
+            inlining.pop();
+            return result;
+        }
+
+        final Set<String> readOnly = new HashSet<>();
+        for (Iterator<Map.Entry<String, JsonNode>> it = schema.fields(); it.hasNext();) {
+            final Map.Entry<String, JsonNode> field = it.next();
+            final String keyword = field.getKey();
+            final JsonNode value = field.getValue();
+            if ("properties".equals(keyword)) {
+                final ObjectNode properties = result.putObject("properties");
+                for (Iterator<Map.Entry<String, JsonNode>> props = value.fields(); props.hasNext();) {
+                    final Map.Entry<String, JsonNode> property = props.next();
+                    if (property.getValue().path("readOnly").asBoolean()) {
+                        readOnly.add(property.getKey());
+                    } else {
+                        properties.set(property.getKey(), convert(property.getValue(), inlining, definitions));
+                    }
+                }
+            } else if ("items".equals(keyword) || "not".equals(keyword)
+                    || ("additionalProperties".equals(keyword) && value.isObject())) {
+                result.set(keyword, convert(value, inlining, definitions));
+            } else if (SCHEMA_LISTS.contains(keyword)) {
+                final ArrayNode list = result.putArray(keyword);
+                for (JsonNode item : value) {
+                    list.add(convert(item, inlining, definitions));
+                }
+            } else if (KEYWORDS.contains(keyword) || "additionalProperties".equals(keyword)) {
+                result.set(keyword, value.deepCopy());
+            }
+        }
+
+        if (!readOnly.isEmpty() && result.has("required")) {
+            final ArrayNode required = result.putArray("required");
+            for (JsonNode name : schema.get("required")) {
+                if (!readOnly.contains(name.asText())) {
+                    required.add(name);
+                }
+            }
+            if (required.size() == 0) {
+                result.remove("required");
+            }
+        }
+
+        if (schema.path("nullable").asBoolean()) {
+            if (result.has("type")) {
+                result.putArray("type").add(schema.get("type")).add("null");
+            }
+            if (result.has("enum")) {
+                ((ArrayNode) result.get("enum")).addNull();
+            }
+        }
+        return result;
+    }
+}
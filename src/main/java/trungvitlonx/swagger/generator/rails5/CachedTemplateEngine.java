@@ -0,0 +1,141 @@
+package trungvitlonx.swagger.generator.rails5;
+
+import com.github.jknack.handlebars.Handlebars;
+import com.github.jknack.handlebars.Template;
+import com.github.jknack.handlebars.cache.ConcurrentMapTemplateCache;
+import io.swagger.codegen.v3.CodegenConfig;
+import io.swagger.codegen.v3.templates.CodegenTemplateLoader;
+import io.swagger.codegen.v3.templates.HandlebarTemplateEngine;
+import io.swagger.codegen.v3.templates.TemplateEngine;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Drop-in replacement for {@link HandlebarTemplateEngine} that keeps compiled templates and
+ * partials for the lifetime of the process. The stock engine builds a new {@link Handlebars},
+ * re-registering all helpers, for every render, and that instance has no template cache, so
+ * every {@code {{> partial}}} is compiled again each time it is applied.
+ *
+ * One {@link Handlebars} is shared per codegen class and template dirs. It remembers the hash of
+ * every template source it was used with. Runs with other options render other templates of the
+ * same dirs and add theirs. A run that hashes any of them differently, because a template or
+ * partial was edited, replaces it and everything compiled by it. Sharing it between generator
+ * instances is safe because every registered helper is stateless.
+ */
+public class CachedTemplateEngine implements TemplateEngine {
+    private static final ConcurrentMap<String, Environment> ENVIRONMENTS = new ConcurrentHashMap<>();
+
+    private final CodegenConfig config;
+    private final Map<String, String> sourceHashes;
+
+    /**
+     * @param sourceHashes hash of every template source a template may include, by template name
+     */
+    public CachedTemplateEngine(CodegenConfig config, Map<String, String> sourceHashes) {
+        this.config = config;
+        this.sourceHashes = sourceHashes;
+    }
+
+    @Override
+    public String getRendered(String templateFile, Map<String, Object> templateData) throws IOException {
+        return getTemplate(templateFile).apply(templateData);
+    }
+
+    @Override
+    public String getName() {
+        return "handlebars";
+    }
+
+    protected Template getTemplate(String templateFile) throws IOException {
+        final String key = config.getClass().getName() + '\n' + templateDir() + '\n' + customTemplateDir();
+
+        Environment environment = ENVIRONMENTS.get(key);
+        if (environment == null || !environment.accepts(sourceHashes)) {
+            // concurrent misses may create it twice, the results are equivalent
+            environment = new Environment(newHandlebars());
+            ENVIRONMENTS.put(key, environment);
+        }
+        environment.sourceHashes.putAll(sourceHashes);
+        return environment.getTemplate(templateFile.replace('\\', '/'));
+    }
+
+    /**
+     * The setup {@link HandlebarTemplateEngine} uses for every render, plus a template cache.
+     */
+    protected Handlebars newHandlebars() {
+        final CodegenTemplateLoader loader = new CodegenTemplateLoader()
+                .templateDir(templateDir())
+                .customTemplateDir(customTemplateDir());
+        final Handlebars handlebars = new Handlebars(loader).with(new ConcurrentMapTemplateCache());
+        handlebars.prettyPrint(true);
+        config.addHandlebarHelpers(handlebars);
+        return handlebars;
+    }
+
+    private String templateDir() {
+        return config.templateDir().replace('\\', '/');
+    }
+
+    private String customTemplateDir() {
+        return config.customTemplateDir() == null ? null : config.customTemplateDir().replace('\\', '/');
+    }
+
+    /**
+     * Drops every compiled template, e.g. to measure uncached runs.
+     */
+    public static void clear() {
+        ENVIRONMENTS.clear();
+    }
+
+    static int size() {
+        return ENVIRONMENTS.size();
+    }
+
+    /**
+     * The compiled template of the given file, if any environment holds one.
+     */
+    static Template compiled(String templateFile) {
+        for (Environment environment : ENVIRONMENTS.values()) {
+            final Template template = environment.templates.get(templateFile.replace('\\', '/'));
+            if (template != null) {
+                return template;
+            }
+        }
+        return null;
+    }
+
+    private static class Environment {
+        private final ConcurrentMap<String, String> sourceHashes = new ConcurrentHashMap<>();
+        private final Handlebars handlebars;
+        private final ConcurrentMap<String, Template> templates = new ConcurrentHashMap<>();
+
+        private Environment(Handlebars handlebars) {
+            this.handlebars = handlebars;
+        }
+
+        /**
+         * Whether every template source it has seen is hashed the same by the given run.
+         */
+        private boolean accepts(Map<String, String> hashes) {
+            for (Map.Entry<String, String> entry : hashes.entrySet()) {
+                final String known = sourceHashes.get(entry.getKey());
+                if (known != null && !known.equals(entry.getValue())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private Template getTemplate(String templateFile) throws IOException {
+            Template template = templates.get(templateFile);
+            if (template == null) {
+                template = handlebars.compile(templateFile);
+                templates.put(templateFile, template);
+            }
+            return template;
+        }
+    }
+}
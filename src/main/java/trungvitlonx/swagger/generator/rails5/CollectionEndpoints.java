@@ -0,0 +1,149 @@
+package trungvitlonx.swagger.generator.rails5;
+
+import io.swagger.codegen.v3.CodegenOperation;
+import io.swagger.codegen.v3.CodegenParameter;
+import io.swagger.v3.oas.models.OpenAPI;
+import io.swagger.v3.oas.models.media.ArraySchema;
+import io.swagger.v3.oas.models.media.Schema;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Pagination scaffolding of GET operations returning an array of a component schema.
+ *
+ * The stub loads the collection through the {@code Pagination} concern, capped at a maximum
+ * page size and preloading every association the schema refers to with {@code $ref}. Limit,
+ * cursor and offset query params are recognized by name. With a cursor param the collection is
+ * keyset paginated on the primary key and the next cursor is sent in a header, with only an
+ * offset param it is paged by offset. Without either a capped page would cut off records the
+ * client has no way to request, so such actions are left unpaginated.
+ */
+public class CollectionEndpoints {
+    public static final String PAGINATE_EXTENSION = "x-rails5-paginate";
+    public static final String PAGE_SIZE_EXTENSION = "x-rails5-page-size";
+    public static final String NEXT_CURSOR_EXTENSION = "x-rails5-next-cursor";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CollectionEndpoints.class);
+
+    private static final String REF_PREFIX = "#/components/schemas/";
+    private static final Set<String> LIMIT_PARAMS = new HashSet<>(Arrays.asList(
+            "limit", "perpage", "pagesize", "pagelimit", "size"));
+    private static final Set<String> CURSOR_PARAMS = new HashSet<>(Arrays.asList(
+            "cursor", "after", "startingafter", "pagetoken", "nexttoken", "continuationtoken"));
+    private static final Set<String> OFFSET_PARAMS = new HashSet<>(Arrays.asList(
+            "offset", "skip", "start"));
+
+    private final Rails5Codegen codegen;
+    private final int maxPageSize;
+    private final Map<String, String> schemaNamesByModel = new HashMap<>();
+    private final Map<String, Schema> schemas;
+    private final ConcurrentMap<String, String> includes = new ConcurrentHashMap<>();
+
+    public CollectionEndpoints(OpenAPI openAPI, Rails5Codegen codegen, int maxPageSize) {
+        this.codegen = codegen;
+        this.maxPageSize = maxPageSize;
+        this.schemas = openAPI.getComponents() == null || openAPI.getComponents().getSchemas() == null
+                ? Collections.emptyMap()
+                : openAPI.getComponents().getSchemas();
+        for (String schemaName : schemas.keySet()) {
+            schemaNamesByModel.put(codegen.toModelName(schemaName), schemaName);
+        }
+    }
+
+    /**
+     * Adds the pagination extensions to a collection endpoint, other operations are left as is.
+     */
+    public void apply(CodegenOperation operation) {
+        final String schemaName = schemaNamesByModel.get(operation.returnBaseType);
+        if (!"get".equals(operation.httpMethod) || !"array".equals(operation.returnContainer) || schemaName == null) {
+            return;
+        }
+
+        CodegenParameter limit = null;
+        CodegenParameter cursor = null;
+        CodegenParameter offset = null;
+        for (CodegenParameter param : operation.queryParams) {
+            final String name = param.baseName.replace("_", "").replace("-", "").toLowerCase();
+            if (limit == null && LIMIT_PARAMS.contains(name)) {
+                limit = param;
+            } else if (cursor == null && CURSOR_PARAMS.contains(name)) {
+                cursor = param;
+            } else if (offset == null && OFFSET_PARAMS.contains(name)) {
+                offset = param;
+            }
+        }
+
+        if (cursor == null && offset == null) {
+            LOGGER.info("not paginating " + operation.operationId + ", it has no cursor or offset query param to request further pages");
+            return;
+        }
+
+        int max = maxPageSize;
+        if (limit != null && StringUtils.isNotEmpty(limit.maximum)) {
+            // any JSON number, possibly beyond int
+            final BigDecimal maximum = new BigDecimal(limit.maximum);
+            if (maximum.compareTo(BigDecimal.valueOf(max)) < 0) {
+                max = maximum.intValue();
+            }
+        }
+
+        final String pageSize = (limit == null ? "nil" : "params[:" + limit.baseName + "]") + ", max: " + max;
+        final StringBuilder paginate = new StringBuilder("paginate(").append(operation.returnBaseType)
+                .append(includesOf(schemaName));
+        if (cursor != null) {
+            paginate.append(", cursor: params[:").append(cursor.baseName).append(']');
+        }
+        if (offset != null) {
+            paginate.append(", offset: params[:").append(offset.baseName).append(']');
+        }
+        paginate.append(", limit: ").append(pageSize);
+        if (cursor == null) {
+            // the action never reads a cursor, sending one would be useless
+            paginate.append(", next_cursor: false");
+        }
+        paginate.append(')');
+
+        final Map<String, Object> extensions = operation.getVendorExtensions();
+        extensions.put(Rails5Codegen.RESULT_EXTENSION, ResponseSerializers.resultVariable(operation));
+        extensions.put(PAGINATE_EXTENSION, paginate.toString());
+        extensions.put(PAGE_SIZE_EXTENSION, pageSize);
+        extensions.put(NEXT_CURSOR_EXTENSION, cursor != null);
+    }
+
+    /**
+     * {@code .includes(...)} of the properties referring to other schemas, or an empty string.
+     */
+    private String includesOf(String schemaName) {
+        return includes.computeIfAbsent(schemaName, name -> {
+            final Schema schema = schemas.get(name);
+            final List<String> associations = new ArrayList<>();
+            if (schema != null && schema.getProperties() != null) {
+                for (Object entry : schema.getProperties().entrySet()) {
+                    @SuppressWarnings("unchecked")
+                    final Map.Entry<String, Schema> property = (Map.Entry<String, Schema>) entry;
+                    Schema value = property.getValue();
+                    if (value instanceof ArraySchema && ((ArraySchema) value).getItems() != null) {
+                        value = ((ArraySchema) value).getItems();
+                    }
+                    if (value.get$ref() != null && value.get$ref().startsWith(REF_PREFIX)) {
+                        associations.add(":" + codegen.toVarName(property.getKey()));
+                    }
+                }
+            }
+            return associations.isEmpty() ? "" : ".includes(" + String.join(", ", associations) + ")";
+        });
+    }
+}
@@ -0,0 +1,62 @@
+package trungvitlonx.swagger.generator.rails5;
+
+import io.swagger.codegen.v3.templates.TemplateEngine;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Template engine of the parallel mode. DefaultGenerator renders a file and immediately passes
+ * the result to {@link Rails5Generator#writeToFile} on the same thread. Instead of rendering,
+ * this engine hands the render to that call, which runs it on the worker pool once the
+ * operation group is post-processed.
+ */
+class DeferredTemplateEngine implements TemplateEngine {
+    private static final ThreadLocal<Render> PENDING = new ThreadLocal<>();
+
+    private final TemplateEngine delegate;
+
+    DeferredTemplateEngine(TemplateEngine delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public String getRendered(String templateFile, Map<String, Object> templateData) {
+        PENDING.set(new Render(delegate, templateFile, templateData));
+        return "";
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    /**
+     * The render requested last on this thread, if it was not taken yet.
+     */
+    static Render takePending() {
+        final Render render = PENDING.get();
+        PENDING.remove();
+        return render;
+    }
+
+    static class Render {
+        private final TemplateEngine engine;
+        private final String templateFile;
+        private final Map<String, Object> templateData;
+
+        private Render(TemplateEngine engine, String templateFile, Map<String, Object> templateData) {
+            this.engine = engine;
+            this.templateFile = templateFile;
+            this.templateData = templateData;
+        }
+
+        Map<String, Object> getTemplateData() {
+            return templateData;
+        }
+
+        String render() throws IOException {
+            return engine.getRendered(templateFile, templateData);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package trungvitlonx.swagger.generator.rails5;
+
+import io.swagger.v3.core.util.Json;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Inputs of the last generation run, persisted in the output directory.
+ *
+ * Maps every generated file (relative to the output folder) to the hash of the spec
+ * fragments it was rendered from. A file is only considered up to date when the generator
+ * and the templates are unchanged as well.
+ */
+public class GenerationManifest {
+    private static final Logger LOGGER = LoggerFactory.getLogger(GenerationManifest.class);
+
+    public static final String FILE_NAME = ".swagger-codegen/rails5-manifest.json";
+
+    private String generatorVersion;
+    private String templateHash;
+    private String optionsHash;
+    private Map<String, String> files = new TreeMap<>();
+
+    public GenerationManifest() {}
+
+    public GenerationManifest(String generatorVersion, String templateHash) {
+        this.generatorVersion = generatorVersion;
+        this.templateHash = templateHash;
+    }
+
+    public static GenerationManifest read(File outputDir) {
+        final File file = new File(outputDir, FILE_NAME);
+        if (!file.isFile()) {
+            return null;
+        }
+        try {
+            return Json.mapper().readValue(file, GenerationManifest.class);
+        } catch (IOException e) {
+            LOGGER.warn("Ignoring unreadable manifest " + file + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    public void write(File outputDir) throws IOException {
+        final File file = new File(outputDir, FILE_NAME);
+        file.getParentFile().mkdirs();
+        Json.pretty().writeValue(file, this);
+    }
+
+    public boolean isCompatible(GenerationManifest other) {
+        return other != null
+                && generatorVersion != null && generatorVersion.equals(other.generatorVersion)
+                && templateHash != null && templateHash.equals(other.templateHash);
+    }
+
+    public String getGeneratorVersion() {
+        return generatorVersion;
+    }
+
+    public void setGeneratorVersion(String generatorVersion) {
+        this.generatorVersion = generatorVersion;
+    }
+
+    public String getTemplateHash() {
+        return templateHash;
+    }
+
+    public void setTemplateHash(String templateHash) {
+        this.templateHash = templateHash;
+    }
+
+    /**
+     * Hash of the options the output depends on. Per-file hashes cover them too, only
+     * {@link Rails5Codegen#DIFF_AGAINST}, which re-renders by spec changes, needs them as a whole.
+     */
+    public String getOptionsHash() {
+        return optionsHash;
+    }
+
+    public void setOptionsHash(String optionsHash) {
+        this.optionsHash = optionsHash;
+    }
+
+    public Map<String, String> getFiles() {
+        return files;
+    }
+
+    public void setFiles(Map<String, String> files) {
+        this.files = new TreeMap<>(files);
+    }
+}
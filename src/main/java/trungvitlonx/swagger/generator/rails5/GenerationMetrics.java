@@ -0,0 +1,192 @@
+package trungvitlonx.swagger.generator.rails5;
+
+import io.swagger.v3.core.util.Json;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Wall time, CPU time and allocated bytes of one generation run, per phase and per entry
+ * (controller, template or file) within a phase.
+ *
+ * Every measured section is also emitted as a {@link GenerationPhaseEvent}, which costs nothing
+ * unless a JFR recording has that event enabled.
+ */
+public class GenerationMetrics {
+    public static final String PARSE = "parse";
+    public static final String PROCESS_OPTS = "processOpts";
+    public static final String PREPROCESS_OPENAPI = "preprocessOpenAPI";
+    public static final String POST_PROCESS_OPERATIONS = "postProcessOperations";
+    public static final String POST_PROCESS_SUPPORTING_FILE_DATA = "postProcessSupportingFileData";
+    public static final String RENDER = "render";
+    public static final String WRITE = "write";
+    public static final String GENERATE = "generate";
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    private static final com.sun.management.ThreadMXBean ALLOCATIONS =
+            THREADS instanceof com.sun.management.ThreadMXBean ? (com.sun.management.ThreadMXBean) THREADS : null;
+
+    private final ConcurrentMap<String, ConcurrentMap<String, Stat>> phases = new ConcurrentHashMap<>();
+
+    /**
+     * Starts measuring a section on the current thread, to be closed on the same thread.
+     */
+    public Span start(String phase, String key) {
+        return new Span(phase, key);
+    }
+
+    public void record(String phase, String key, long wallNanos, long cpuNanos, long allocatedBytes) {
+        phases.computeIfAbsent(phase, p -> new ConcurrentHashMap<>())
+                .computeIfAbsent(key, k -> new Stat())
+                .add(wallNanos, cpuNanos, allocatedBytes);
+    }
+
+    public void addAll(GenerationMetrics other) {
+        for (Map.Entry<String, ConcurrentMap<String, Stat>> phase : other.phases.entrySet()) {
+            for (Map.Entry<String, Stat> entry : phase.getValue().entrySet()) {
+                phases.computeIfAbsent(phase.getKey(), p -> new ConcurrentHashMap<>())
+                        .computeIfAbsent(entry.getKey(), k -> new Stat())
+                        .add(entry.getValue().snapshot());
+            }
+        }
+    }
+
+    /**
+     * Totals of a phase across all of its entries, or null if it was never measured.
+     */
+    public Stat getPhase(String phase) {
+        final Map<String, Stat> entries = phases.get(phase);
+        if (entries == null) {
+            return null;
+        }
+        final Stat total = new Stat();
+        for (Stat stat : entries.values()) {
+            total.add(stat.snapshot());
+        }
+        return total;
+    }
+
+    /**
+     * Sorted snapshot for the JSON report: phase name to its total and its entries.
+     */
+    public Map<String, Object> toReport() {
+        final Map<String, Object> report = new TreeMap<>();
+        for (Map.Entry<String, ConcurrentMap<String, Stat>> phase : phases.entrySet()) {
+            final Map<String, Stat> entries = new TreeMap<>();
+            for (Map.Entry<String, Stat> entry : phase.getValue().entrySet()) {
+                entries.put(entry.getKey(), entry.getValue().snapshot());
+            }
+
+            final Map<String, Object> phaseReport = new LinkedHashMap<>();
+            phaseReport.put("total", getPhase(phase.getKey()));
+            phaseReport.put("entries", entries);
+            report.put(phase.getKey(), phaseReport);
+        }
+        return report;
+    }
+
+    public void writeReport(File file) throws IOException {
+        Json.pretty().writeValue(file, toReport());
+    }
+
+    private static long cpuTime() {
+        return THREADS.isCurrentThreadCpuTimeSupported() ? THREADS.getCurrentThreadCpuTime() : 0L;
+    }
+
+    private static long allocatedBytes() {
+        return ALLOCATIONS != null && ALLOCATIONS.isThreadAllocatedMemorySupported()
+                ? ALLOCATIONS.getCurrentThreadAllocatedBytes()
+                : 0L;
+    }
+
+    public class Span implements AutoCloseable {
+        private final String phase;
+        private final String key;
+        private final GenerationPhaseEvent event = new GenerationPhaseEvent();
+        private final long wallStart;
+        private final long cpuStart;
+        private final long allocatedStart;
+
+        private Span(String phase, String key) {
+            this.phase = phase;
+            this.key = key;
+            event.begin();
+            this.allocatedStart = allocatedBytes();
+            this.cpuStart = cpuTime();
+            this.wallStart = System.nanoTime();
+        }
+
+        @Override
+        public void close() {
+            final long wallNanos = System.nanoTime() - wallStart;
+            final long cpuNanos = cpuTime() - cpuStart;
+            final long allocated = allocatedBytes() - allocatedStart;
+            record(phase, key, wallNanos, cpuNanos, allocated);
+
+            event.end();
+            if (event.shouldCommit()) {
+                event.phase = phase;
+                event.key = key;
+                event.cpuTime = cpuNanos;
+                event.allocated = allocated;
+                event.commit();
+            }
+        }
+    }
+
+    public static class Stat {
+        private long count;
+        private long wallNanos;
+        private long cpuNanos;
+        private long allocatedBytes;
+
+        synchronized void add(long wallNanos, long cpuNanos, long allocatedBytes) {
+            this.count++;
+            this.wallNanos += wallNanos;
+            this.cpuNanos += cpuNanos;
+            this.allocatedBytes += allocatedBytes;
+        }
+
+        synchronized Stat snapshot() {
+            final Stat copy = new Stat();
+            copy.count = count;
+            copy.wallNanos = wallNanos;
+            copy.cpuNanos = cpuNanos;
+            copy.allocatedBytes = allocatedBytes;
+            return copy;
+        }
+
+        /**
+         * Adds a {@link #snapshot()} of another stat, so that only one lock is held at a time.
+         */
+        synchronized void add(Stat other) {
+            this.count += other.count;
+            this.wallNanos += other.wallNanos;
+            this.cpuNanos += other.cpuNanos;
+            this.allocatedBytes += other.allocatedBytes;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getWallNanos() {
+            return wallNanos;
+        }
+
+        public long getCpuNanos() {
+            return cpuNanos;
+        }
+
+        public long getAllocatedBytes() {
+            return allocatedBytes;
+        }
+    }
+}
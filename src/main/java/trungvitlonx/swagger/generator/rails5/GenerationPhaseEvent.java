@@ -0,0 +1,32 @@
+package trungvitlonx.swagger.generator.rails5;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * JFR event for one section measured by {@link GenerationMetrics}.
+ */
+@Name("trungvitlonx.rails5.GenerationPhase")
+@Label("Rails5 Generation Phase")
+@Category("Rails5 Generator")
+@Description("A phase of a Rails5 generation run, e.g. rendering one controller")
+public class GenerationPhaseEvent extends jdk.jfr.Event {
+    @Label("Phase")
+    String phase;
+
+    @Label("Key")
+    @Description("Controller, template or file the phase ran for")
+    String key;
+
+    @Label("CPU Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long cpuTime;
+
+    @Label("Allocated")
+    @DataAmount
+    long allocated;
+}
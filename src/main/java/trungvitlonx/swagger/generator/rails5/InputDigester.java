@@ -0,0 +1,146 @@
+package trungvitlonx.swagger.generator.rails5;
+
+import io.swagger.codegen.v3.CodegenOperation;
+import io.swagger.v3.core.util.Json;
+import io.swagger.v3.oas.models.OpenAPI;
+import io.swagger.v3.oas.models.Operation;
+import io.swagger.v3.oas.models.PathItem;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.MissingNode;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Computes content hashes of the spec fragments a generated file depends on.
+ *
+ * The hash of an operation group covers the raw {@link Operation}s (with their path-level
+ * parameters) and every component they reach through {@code $ref}, transitively, so a change
+ * to a nested schema invalidates every controller using it.
+ */
+public class InputDigester {
+    private static final String COMPONENTS_PREFIX = "#/components/";
+
+    private final OpenAPI openAPI;
+    private final JsonNode components;
+    private final byte[] salt;
+
+    public InputDigester(OpenAPI openAPI, String salt) {
+        this.openAPI = openAPI;
+        this.components = openAPI.getComponents() == null
+                ? MissingNode.getInstance()
+                : Json.mapper().valueToTree(openAPI.getComponents());
+        this.salt = (salt + "\n" + toJson(openAPI.getInfo()) + "\n" + toJson(openAPI.getServers()))
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+    public String digest(Collection<CodegenOperation> operations) {
+        final MessageDigest digest = newDigest();
+        digest.update(salt);
+
+        final Set<String> refs = new TreeSet<>();
+        for (CodegenOperation operation : operations) {
+            final PathItem pathItem = openAPI.getPaths() == null ? null : openAPI.getPaths().get(operation.path);
+            final Operation source = pathItem == null
+                    ? null
+                    : pathItem.readOperationsMap().get(PathItem.HttpMethod.valueOf(operation.httpMethod.toUpperCase(Locale.ROOT)));
+
+            update(digest, operation.httpMethod.toLowerCase(Locale.ROOT) + " " + operation.path);
+            if (source != null) {
+                final JsonNode node = Json.mapper().valueToTree(source);
+                final JsonNode pathParameters = Json.mapper().valueToTree(pathItem.getParameters());
+                update(digest, node.toString());
+                update(digest, pathParameters.toString());
+                collectRefs(node, refs);
+                collectRefs(pathParameters, refs);
+            } else {
+                update(digest, String.valueOf(operation.operationId));
+            }
+        }
+
+        // follow $refs until the set of reachable components is closed
+        final Deque<String> pending = new ArrayDeque<>(refs);
+        while (!pending.isEmpty()) {
+            final Set<String> nested = new TreeSet<>();
+            collectRefs(resolve(pending.pop()), nested);
+            for (String ref : nested) {
+                if (refs.add(ref)) {
+                    pending.push(ref);
+                }
+            }
+        }
+
+        for (String ref : refs) {
+            update(digest, ref);
+            update(digest, resolve(ref).toString());
+        }
+
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    public static String digest(Map<String, String> hashes) {
+        final MessageDigest digest = newDigest();
+        for (Map.Entry<String, String> entry : hashes.entrySet()) {
+            update(digest, entry.getKey());
+            update(digest, entry.getValue());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    public static String digest(byte[] content) {
+        return HexFormat.of().formatHex(newDigest().digest(content));
+    }
+
+    private JsonNode resolve(String ref) {
+        if (!ref.startsWith(COMPONENTS_PREFIX)) {
+            return MissingNode.getInstance();
+        }
+        final String[] parts = ref.substring(COMPONENTS_PREFIX.length()).split("/", 2);
+        return parts.length < 2 ? MissingNode.getInstance() : components.path(parts[0]).path(parts[1]);
+    }
+
+    private static void collectRefs(JsonNode node, Set<String> refs) {
+        if (node.isObject()) {
+            final JsonNode ref = node.get("$ref");
+            if (ref != null && ref.isTextual()) {
+                refs.add(ref.asText());
+            }
+        }
+        for (Iterator<JsonNode> it = node.elements(); it.hasNext();) {
+            collectRefs(it.next(), refs);
+        }
+    }
+
+    private static String toJson(Object value) {
+        try {
+            return Json.mapper().writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            return String.valueOf(value);
+        }
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        digest.update(value.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package trungvitlonx.swagger.generator.rails5;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Keeps the generated files in memory, by path, e.g. for tests that would otherwise generate
+ * into a temporary folder and read it back.
+ */
+public class MemorySink implements OutputSink {
+    private final Map<String, byte[]> files = new ConcurrentSkipListMap<>();
+
+    @Override
+    public void write(String path, byte[] content) {
+        files.put(path, content);
+    }
+
+    @Override
+    public OutputStream open(String path) {
+        return new ByteArrayOutputStream() {
+            private boolean closed;
+
+            @Override
+            public void close() {
+                if (!closed) {
+                    closed = true;
+                    files.put(path, toByteArray());
+                }
+            }
+        };
+    }
+
+    /**
+     * Every file written so far, sorted by path.
+     */
+    public Map<String, byte[]> getFiles() {
+        return Collections.unmodifiableMap(files);
+    }
+
+    /**
+     * Content of a file as UTF-8, or null if it was not generated.
+     */
+    public String read(String path) {
+        final byte[] content = files.get(path);
+        return content == null ? null : new String(content, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() {}
+}
@@ -0,0 +1,39 @@
+package trungvitlonx.swagger.generator.rails5;
+
+import io.swagger.codegen.v3.templates.TemplateEngine;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Records every render of the wrapped engine in {@link GenerationMetrics#RENDER}, keyed by
+ * template and, for API templates, by the controller being rendered.
+ */
+public class MeteredTemplateEngine implements TemplateEngine {
+    private final TemplateEngine delegate;
+    private final GenerationMetrics metrics;
+
+    public MeteredTemplateEngine(TemplateEngine delegate, GenerationMetrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public String getRendered(String templateFile, Map<String, Object> templateData) throws IOException {
+        final Object classname = templateData.get("classname");
+        final String key = classname == null ? templateFile : templateFile + " " + classname;
+
+        try (GenerationMetrics.Span span = metrics.start(GenerationMetrics.RENDER, key)) {
+            return delegate.getRendered(templateFile, templateData);
+        }
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    public TemplateEngine getDelegate() {
+        return delegate;
+    }
+}
@@ -0,0 +1,24 @@
+package trungvitlonx.swagger.generator.rails5;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Destination of the generated files in place of the output folder, set through
+ * {@link Rails5Codegen#setOutputSink}.
+ *
+ * Paths are relative to the output folder and separated by {@code /}. Controllers are written
+ * from several threads in parallel mode, so implementations must be thread-safe. Nothing is
+ * read back from a sink: incremental runs, streamed routes and the deletion of stale files only
+ * work on the output folder.
+ */
+public interface OutputSink extends Closeable {
+
+    void write(String path, byte[] content) throws IOException;
+
+    /**
+     * Stream for the content of one file, complete once closed. Closing it twice is harmless.
+     */
+    OutputStream open(String path) throws IOException;
+}
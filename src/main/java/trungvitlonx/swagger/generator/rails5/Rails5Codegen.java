@@ -2,36 +2,120 @@ package trungvitlonx.swagger.generator.rails5;
 
 import io.swagger.codegen.v3.*;
 import io.swagger.codegen.v3.generators.DefaultCodegenConfig;
-import io.swagger.codegen.v3.generators.util.OpenAPIUtil;
-import io.swagger.v3.core.util.Yaml;
+import io.swagger.codegen.v3.templates.HandlebarTemplateEngine;
+import io.swagger.codegen.v3.templates.TemplateEngine;
 import io.swagger.v3.oas.models.OpenAPI;
-import io.swagger.v3.oas.models.media.ObjectSchema;
+import io.swagger.v3.oas.models.Operation;
 import io.swagger.v3.oas.models.media.Schema;
-import io.swagger.v3.oas.models.parameters.Parameter;
+import io.swagger.v3.parser.OpenAPIV3Parser;
+import io.swagger.v3.parser.core.models.ParseOptions;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.fasterxml.jackson.core.JsonGenerator;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.JsonSerializer;
-import com.fasterxml.jackson.databind.SerializerProvider;
-import com.fasterxml.jackson.databind.module.SimpleModule;
 import com.github.jknack.handlebars.Handlebars;
 import com.github.jknack.handlebars.helper.ConditionalHelpers;
+import trungvitlonx.swagger.generator.handlebars.Rails5Helper;
 
 import java.io.File;
 import java.io.IOException;
-import java.math.BigDecimal;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
 
 public class Rails5Codegen extends DefaultCodegenConfig {
     private static final Logger LOGGER = LoggerFactory.getLogger(Rails5Codegen.class);
 
+    public static final String INCREMENTAL = "incremental";
+    public static final String SWAGGER_YAML_FILE = "swaggerYamlFile";
+    public static final String PARALLELISM = "parallelism";
+    public static final String ROUTES_STYLE = "routesStyle";
+    public static final String ROUTES_STYLE_MATCH = "match";
+    public static final String ROUTES_STYLE_RESOURCES = "resources";
+    public static final String STREAM_ROUTES = "streamRoutes";
+    public static final String DIFF_AGAINST = "diffAgainst";
+    public static final String SHARD_BY = "shardBy";
+    public static final String SHARD_BY_TAG = "tag";
+    public static final String SHARD_BY_PATH = "path";
+    public static final String VALIDATION_STYLE = "validationStyle";
+    public static final String VALIDATION_STYLE_PARAM = "param";
+    public static final String VALIDATION_STYLE_SCHEMA = "schema";
+    public static final String SERIALIZERS = "serializers";
+    public static final String SERIALIZER_VALUE_EXTENSION = "x-rails5-serialize";
+    public static final String RENDER_EXTENSION = "x-rails5-render";
+    public static final String RESULT_EXTENSION = "x-rails5-result";
+    public static final String BODY_SCHEMAS = "bodySchemas";
+    public static final String PAGINATION = "pagination";
+    public static final String MAX_PAGE_SIZE = "maxPageSize";
+
+    protected static final int DEFAULT_MAX_PAGE_SIZE = 100;
+    protected static final String BODY_SCHEMAS_TEMPLATE = "body_schemas.mustache";
+    protected static final String SHARD_ROUTES_TEMPLATE = "shard_routes.mustache";
+
+    // cache hints read from operations and their success response
+    public static final String CACHE_TTL = "x-cache-ttl";
+    public static final String CACHE_PUBLIC = "x-cache-public";
+    public static final String ETAG = "x-etag";
+
+    protected static final int NAME_CACHE_SIZE = 16384;
+
+    protected static final Set<String> OUTPUT_NEUTRAL_OPTIONS = new HashSet<>(Arrays.asList("generatedDate",
+            INCREMENTAL, PARALLELISM, DIFF_AGAINST));
+
+    protected static final List<String> PARTIAL_TEMPLATES = Arrays.asList("_header.mustache", "_action.mustache", "_params_validation.mustache",
+            "_param.mustache", "_param_rule.mustache", "_param_options.mustache", "_routes_begin.mustache", "_routes_group.mustache", "_routes_end.mustache");
+
     protected String appFolder = "app";
     protected String configFolder = "config";
 
     protected String controllerFolder = "controllers";
+    protected String serializerFolder = "serializers";
+
+    protected GenerationManifest manifest;
+    protected GenerationManifest previousManifest;
+    protected InputDigester inputDigester;
+    protected BodyParamIndex bodyParamIndex;
+    protected ResponseSerializers responseSerializers;
+    protected CollectionEndpoints collectionEndpoints;
+    protected BodySchemas bodySchemas;
+    protected SpecDiff.ChangeSet changeSet;
+    // whether the previous run was generated the way this one is, so DIFF_AGAINST may skip controllers
+    protected Boolean sameGeneration;
+    protected OutputSink outputSink;
+    protected final Map<String, String> groupHashes = new TreeMap<>();
+    // controller file name to its shard, set before any of its files is named
+    protected final Map<String, String> shards = new ConcurrentHashMap<>();
+    // folders missing before a run into an output sink, children first
+    protected final Set<File> missingFolders = new TreeSet<>(Comparator.comparing(File::getPath).reversed());
+    protected final Set<String> upToDateFiles = new HashSet<>();
+    protected GenerationMetrics metrics = new GenerationMetrics();
+    protected TemplateEngine sourceTemplateEngine;
+    protected MeteredTemplateEngine meteredTemplateEngine;
+    protected Map<String, String> templateHashes;
+
+    // set by Rails5Generator in parallel mode, operation groups are then post-processed on it
+    protected ExecutorService executor;
+    protected final Map<Object, CompletableFuture<Void>> pendingGroups = new IdentityHashMap<>();
+
+    // set in streaming mode, routes of the last operation group are rendered once the next one arrives
+    protected RoutesWriter routesWriter;
+    // the streamed SWAGGER_YAML_FILE of this run and whether its content changed
+    protected File swaggerYamlFile;
+    protected boolean swaggerYamlChanged;
+    protected Map<String, Object> pendingRoutes;
+
+    // name conversions are pure, memoize them for the lifetime of this generator
+    protected final RubyIdentifiers.Cache varNames = new RubyIdentifiers.Cache(NAME_CACHE_SIZE);
+    protected final RubyIdentifiers.Cache operationIds = new RubyIdentifiers.Cache(NAME_CACHE_SIZE);
+    protected final RubyIdentifiers.Cache apiFilenames = new RubyIdentifiers.Cache(NAME_CACHE_SIZE);
 
     public Rails5Codegen() {
         super();
@@ -67,6 +151,42 @@ public class Rails5Codegen extends DefaultCodegenConfig {
         typeMapping.put("array", "Array");
 
         cliOptions.clear();
+        cliOptions.add(CliOption.newBoolean(INCREMENTAL,
+                "only re-render controllers and routes whose spec fragments changed since the last run"));
+        cliOptions.add(CliOption.newString(SWAGGER_YAML_FILE,
+                "stream the spec as YAML into this file, relative to the output folder (e.g. config/swagger.yaml)"));
+        cliOptions.add(CliOption.newString(PARALLELISM,
+                "number of threads post-processing and rendering controllers (default: 1, sequential)"));
+        CliOption routesStyle = new CliOption(ROUTES_STYLE, "how config/routes.rb routes operations");
+        Map<String, String> routesStyles = new LinkedHashMap<>();
+        routesStyles.put(ROUTES_STYLE_MATCH, "one match per operation");
+        routesStyles.put(ROUTES_STYLE_RESOURCES, "scoped resources per controller, match only for non-RESTful actions");
+        routesStyle.setEnum(routesStyles);
+        cliOptions.add(routesStyle.defaultValue(ROUTES_STYLE_MATCH));
+        CliOption validationStyle = new CliOption(VALIDATION_STYLE, "how controllers validate request parameters");
+        Map<String, String> validationStyles = new LinkedHashMap<>();
+        validationStyles.put(VALIDATION_STYLE_PARAM, "param! calls in every action");
+        validationStyles.put(VALIDATION_STYLE_SCHEMA, "one frozen schema constant per action, checked by the ParamsValidation concern");
+        validationStyle.setEnum(validationStyles);
+        cliOptions.add(CliOption.newBoolean(STREAM_ROUTES,
+                "write config/routes.rb one controller at a time instead of rendering it at once (routes.mustache is not used)"));
+        cliOptions.add(CliOption.newString(DIFF_AGAINST,
+                "spec the output was generated from, only controllers of operations changed since are re-rendered (all of them if the generator, templates or options changed)"));
+        CliOption shardBy = new CliOption(SHARD_BY, "split controllers and routes into shards drawn by config/routes.rb (default: not sharded)");
+        Map<String, String> shardKeys = new LinkedHashMap<>();
+        shardKeys.put(SHARD_BY_TAG, "one shard per tag");
+        shardKeys.put(SHARD_BY_PATH, "one shard per first path segment");
+        shardBy.setEnum(shardKeys);
+        cliOptions.add(shardBy);
+        cliOptions.add(validationStyle.defaultValue(VALIDATION_STYLE_PARAM));
+        cliOptions.add(CliOption.newBoolean(SERIALIZERS,
+                "generate a serializer per response model in app/serializers and suggest it in every action"));
+        cliOptions.add(CliOption.newBoolean(BODY_SCHEMAS,
+                "validate JSON request bodies against JSON Schemas in config/schemas instead of param! per body field (json_schemer)"));
+        cliOptions.add(CliOption.newBoolean(PAGINATION,
+                "load collection endpoints through keyset pagination with preloaded associations (ActiveRecord)"));
+        cliOptions.add(CliOption.newString(MAX_PAGE_SIZE,
+                "largest page a paginated collection endpoint returns (default: " + DEFAULT_MAX_PAGE_SIZE + ")"));
     }
 
     @Override
@@ -105,8 +225,27 @@ public class Rails5Codegen extends DefaultCodegenConfig {
 
     @Override
     public String toApiFilename(String name) {
-        name = name.replaceAll("-", "_");
-        return underscore(name);
+        return apiFilenames.get(name, n -> RubyIdentifiers.underscore(n.replace('-', '_')));
+    }
+
+    @Override
+    public String apiFilename(String templateName, String tag) {
+        if (BODY_SCHEMAS_TEMPLATE.equals(templateName)) {
+            // read by the BodyValidation concern, one file per controller
+            return outputFolder + File.separator + configFolder + File.separator + "schemas"
+                    + File.separator + toApiFilename(tag) + apiTemplateFiles().get(templateName);
+        }
+        String shard = shards.get(toApiFilename(tag));
+        if (SHARD_ROUTES_TEMPLATE.equals(templateName)) {
+            return outputFolder + File.separator + configFolder + File.separator + "routes" + File.separator
+                    + shard + File.separator + toApiFilename(tag) + apiTemplateFiles().get(templateName);
+        }
+        if (shard != null) {
+            // namespaced by the shard module, e.g. app/controllers/api/v1/store/orders_controller.rb
+            String suffix = apiTemplateFiles().get(templateName);
+            return apiFileFolder() + File.separator + shard + File.separator + toApiFilename(tag) + suffix;
+        }
+        return super.apiFilename(templateName, tag);
     }
 
     @Override
@@ -129,26 +268,28 @@ public class Rails5Codegen extends DefaultCodegenConfig {
 
     @Override
     public String toVarName(String name) {
+        return varNames.get(name, this::convertVarName);
+    }
+
+    protected String convertVarName(String name) {
         // replace - with _ e.g. created-at => created_at
-        // FIXME: a parameter should not be assigned. Also declare the methods
-        // parameters as 'final'.
-        name = name.replaceAll("-", "_");
+        String varName = name.replace('-', '_');
 
         // if it's all upper case, convert to lower case
-        if (name.matches("^[A-Z_]*$")) {
-            name = name.toLowerCase();
+        if (RubyIdentifiers.isUpperSnakeCase(varName)) {
+            varName = varName.toLowerCase();
         }
 
         // camelize (lower first character) the variable name
         // petId => pet_id
-        name = underscore(name);
+        varName = RubyIdentifiers.underscore(varName);
 
         // for reserved word or word starting with number, append _
-        if (isReservedWord(name) || name.matches("^\\d.*")) {
-            name = escapeReservedWord(name);
+        if (isReservedWord(varName) || RubyIdentifiers.startsWithDigit(varName)) {
+            varName = escapeReservedWord(varName);
         }
 
-        return name;
+        return varName;
     }
 
     @Override
@@ -159,30 +300,102 @@ public class Rails5Codegen extends DefaultCodegenConfig {
 
     @Override
     public String toOperationId(String operationId) {
+        return operationIds.get(operationId, this::convertOperationId);
+    }
+
+    protected String convertOperationId(String operationId) {
         // method name cannot use reserved keyword, e.g. return
         if (isReservedWord(operationId)) {
-            String newOperationId = underscore("call_" + operationId);
+            String newOperationId = RubyIdentifiers.underscore("call_" + operationId);
             LOGGER.warn(operationId + " (reserved word) cannot be used as method name. Renamed to " + newOperationId);
             return newOperationId;
         }
 
-        return underscore(operationId);
+        return RubyIdentifiers.underscore(operationId);
     }
 
     @Override
     public Map<String, Object> postProcessOperations(Map<String, Object> objs) {
         @SuppressWarnings("unchecked")
         Map<String, Object> objectMap = (Map<String, Object>) objs.get("operations");
-
         @SuppressWarnings("unchecked")
         List<CodegenOperation> operations = (List<CodegenOperation>) objectMap.get("operation");
+        String classname = String.valueOf(objectMap.get("classname"));
+
+        if (isSharded() && !operations.isEmpty()) {
+            String shard = shardOf(toApiFilename(operations.get(0).baseName), operations.get(0).path);
+            shards.put(toApiFilename(operations.get(0).baseName), shard);
+            objs.put("shard", shard);
+            objs.put("shardModule", camelize(shard));
+        }
+
+        if (routesWriter != null) {
+            // DefaultGenerator completed the previous group's data and wrote its controller by now
+            flushRoutes();
+            pendingRoutes = objs;
+        }
+
+        if (manifest != null && !operations.isEmpty()) {
+            // hash the raw spec before postProcessOperationGroup rewrites the operations
+            String hash = getInputDigester().digest(operations);
+            groupHashes.put(classname, hash);
+            for (String templateName : apiTemplateFiles().keySet()) {
+                trackInputs(apiFilename(templateName, operations.get(0).baseName), hash);
+            }
+        }
+
+        BodyParamIndex bodyParamIndex = getBodyParamIndex();
 
-        Map<String, Schema> schemas = this.openAPI.getComponents().getSchemas();
-        Set<String> imports = new HashSet<>();
+        if (!operations.isEmpty() && isUnaffected(operations.get(0).baseName)) {
+            for (String templateName : apiTemplateFiles().keySet()) {
+                upToDateFiles.add(relativize(apiFilename(templateName, operations.get(0).baseName)));
+            }
+            // not rendered, its route lines only need the method
+            for (CodegenOperation operation : operations) {
+                operation.httpMethod = operation.httpMethod.toLowerCase();
+            }
+        } else if (executor == null) {
+            try (GenerationMetrics.Span span = metrics.start(GenerationMetrics.POST_PROCESS_OPERATIONS, classname)) {
+                postProcessOperationGroup(operations, bodyParamIndex);
+            }
+        } else {
+            // only touches the operations of this group, Rails5Generator renders it once done
+            pendingGroups.put(objs, CompletableFuture.runAsync(() -> {
+                try (GenerationMetrics.Span span = metrics.start(GenerationMetrics.POST_PROCESS_OPERATIONS, classname)) {
+                    postProcessOperationGroup(operations, bodyParamIndex);
+                }
+            }, executor));
+        }
+        return objs;
+    }
 
+    /**
+     * Rewrites the operations of one controller. Must not touch any other state, so that
+     * groups can be processed in parallel.
+     */
+    protected void postProcessOperationGroup(List<CodegenOperation> operations, BodyParamIndex bodyParamIndex) {
         for (CodegenOperation operation : operations) {
             operation.httpMethod = operation.httpMethod.toLowerCase();
 
+            if (collectionEndpoints != null) {
+                collectionEndpoints.apply(operation);
+            }
+            applyCacheHints(operation);
+
+            if (bodySchemas != null) {
+                Object bodySchema = bodySchemas.of(operation);
+                if (bodySchema != null) {
+                    operation.getVendorExtensions().put(BodySchemas.EXTENSION, bodySchema);
+                }
+            }
+
+            if (responseSerializers != null) {
+                String render = responseSerializers.renderOf(operation);
+                if (render != null) {
+                    operation.getVendorExtensions().put(RENDER_EXTENSION, render);
+                }
+            }
+
             List<CodegenParameter> params = operation.allParams;
             if (params != null && params.isEmpty()) {
                 operation.allParams = null;
@@ -190,35 +403,11 @@ public class Rails5Codegen extends DefaultCodegenConfig {
 
             CodegenParameter bodyParam = operation.getBodyParam();
 
-            if (bodyParam != null) {
-                CodegenParameter codegenParameter = CodegenModelFactory.newInstance(CodegenModelType.PARAMETER);
-                Schema schema = schemas.get(bodyParam.dataType);
-
-                if (schema != null) {
-                    Map<String, Schema> properties = schema.getProperties();
-
-                    for (String key : properties.keySet()) {
-                        Schema property = properties.get(key);
-
-                        if (property.get$ref() != null && StringUtils.isNotBlank(property.get$ref())) {
-                            String schemaName = OpenAPIUtil.getSimpleRef(property.get$ref());
-                            Schema subSchema = schemas.get(schemaName);
-                            if (subSchema instanceof ObjectSchema) {
-                                // TODO handle sub-schema
-                            }
-                        } else if (property instanceof ObjectSchema) {
-                            property.getName();
-                        } else {
-                            boolean required = false;
-                            if (schema.getRequired() != null && !schema.getRequired().isEmpty()) {
-                                required = schema.getRequired().contains(key);
-                            }
-
-                            Parameter parameter = new Parameter().name(key).required(required).schema(property);
-                            codegenParameter = super.fromParameter(parameter, imports);
-                            operation.allParams.add(codegenParameter);
-                        }
-                    }
+            if (bodyParam != null && bodySchemas == null) {
+                // operations sharing a body schema share its flattened fields
+                List<CodegenParameter> fields = bodyParamIndex.get(bodyParam.dataType);
+                if (fields != null) {
+                    operation.allParams.addAll(fields);
                 }
             }
 
@@ -243,35 +432,780 @@ public class Rails5Codegen extends DefaultCodegenConfig {
                 }
             }
         }
+    }
 
-        return objs;
+    /**
+     * Turns the cache hints of a GET operation into the extensions {@code _action.mustache}
+     * renders as {@code expires_in}, a {@code Rails.cache.fetch} keyed by action, path params
+     * and query string, and a conditional GET through {@code stale?}. Hints on the operation
+     * win over hints on its first success response.
+     */
+    protected void applyCacheHints(CodegenOperation operation) {
+        if (!"get".equals(operation.httpMethod)) {
+            return;
+        }
+
+        Map<String, Object> hints = new HashMap<>();
+        if (operation.responses != null) {
+            for (CodegenResponse response : operation.responses) {
+                if (response.code != null && response.code.startsWith("2")) {
+                    hints.putAll(response.getVendorExtensions());
+                    break;
+                }
+            }
+        }
+        hints.putAll(operation.getVendorExtensions());
+
+        Object ttl = hints.get(CACHE_TTL);
+        Object etag = hints.get(ETAG);
+        if (ttl == null && etag == null) {
+            return;
+        }
+
+        Map<String, Object> extensions = operation.getVendorExtensions();
+        extensions.put(RESULT_EXTENSION, ResponseSerializers.resultVariable(operation));
+        if (Boolean.parseBoolean(String.valueOf(hints.get(CACHE_PUBLIC)))) {
+            extensions.put("x-rails5-cache-public", Boolean.TRUE);
+        }
+
+        if (ttl != null) {
+            if (String.valueOf(ttl).matches("[1-9][0-9]*")) {
+                extensions.put("x-rails5-cache-ttl", String.valueOf(ttl));
+                extensions.put("x-rails5-cache-key", cacheKey(operation));
+            } else {
+                LOGGER.warn(CACHE_TTL + " of " + operation.operationId + " is not a positive number of seconds: " + ttl);
+            }
+        }
+
+        if ("strong".equals(etag)) {
+            extensions.put("x-rails5-etag", "strong_etag");
+        } else if (etag != null && !"false".equals(String.valueOf(etag))) {
+            extensions.put("x-rails5-etag", "etag");
+        }
+    }
+
+    protected String cacheKey(CodegenOperation operation) {
+        StringBuilder key = new StringBuilder("['").append(operation.baseName.toLowerCase()).append('#')
+                .append(RouteTable.action(operation)).append('\'');
+        for (CodegenParameter param : operation.pathParams) {
+            key.append(", params[:").append(param.baseName).append(']');
+        }
+        if (!operation.queryParams.isEmpty()) {
+            key.append(", request.query_string");
+        }
+        return key.append(']').toString();
     }
 
     @Override
     public void processOpts() {
-        super.processOpts();
+        try (GenerationMetrics.Span span = metrics.start(GenerationMetrics.PROCESS_OPTS, getName())) {
+            super.processOpts();
+
+            if (ROUTES_STYLE_RESOURCES.equals(additionalProperties.get(ROUTES_STYLE))) {
+                additionalProperties.put("resourceRoutes", Boolean.TRUE);
+            }
+            Object shardBy = additionalProperties.get(SHARD_BY);
+            if (shardBy != null && !SHARD_BY_TAG.equals(shardBy) && !SHARD_BY_PATH.equals(shardBy)) {
+                throw new IllegalArgumentException("Unknown " + SHARD_BY + " " + shardBy
+                        + ", expected " + SHARD_BY_TAG + " or " + SHARD_BY_PATH);
+            }
+            if (isSharded()) {
+                apiTemplateFiles.put(SHARD_ROUTES_TEMPLATE, ".rb");
+                supportingFiles.add(new SupportingFile("api_shards.mustache",
+                        configFolder + File.separator + "initializers", "api_shards.rb"));
+            }
+
+            if (outputSink != null) {
+                // both read back what earlier runs wrote to the output folder
+                for (String option : Arrays.asList(STREAM_ROUTES, INCREMENTAL)) {
+                    if (convertPropertyToBooleanAndWriteBack(option)) {
+                        LOGGER.warn(option + " ignored, the output goes to an output sink");
+                        additionalProperties.put(option, Boolean.FALSE);
+                    }
+                }
+            }
+
+            if (convertPropertyToBooleanAndWriteBack(STREAM_ROUTES) && isSharded()) {
+                LOGGER.warn(STREAM_ROUTES + " ignored, config/routes.rb of a sharded output only loads the shards");
+            }
+            if (Boolean.TRUE.equals(additionalProperties.get(STREAM_ROUTES)) && !isSharded()) {
+                routesWriter = new RoutesWriter(new File(outputFolder + File.separator + configFolder, "routes.rb"));
+            } else {
+                supportingFiles
+                        .add(new SupportingFile("routes.mustache", configFolder, "routes.rb"));
+            }
+
+            if (VALIDATION_STYLE_SCHEMA.equals(additionalProperties.get(VALIDATION_STYLE))) {
+                additionalProperties.put("paramsSchemas", Boolean.TRUE);
+                supportingFiles.add(new SupportingFile("params_validation.mustache",
+                        appFolder + File.separator + controllerFolder + File.separator + "concerns", "params_validation.rb"));
+                supportingFiles.add(new SupportingFile("params_validation_benchmark.mustache",
+                        "script", "params_validation_benchmark.rb"));
+            }
+
+            if (convertPropertyToBooleanAndWriteBack(SERIALIZERS)) {
+                modelTemplateFiles.put("serializer.mustache", "_serializer.rb");
+                supportingFiles.add(new SupportingFile("application_serializer.mustache",
+                        appFolder + File.separator + serializerFolder, "application_serializer.rb"));
+            }
+
+            if (convertPropertyToBooleanAndWriteBack(BODY_SCHEMAS)) {
+                apiTemplateFiles.put(BODY_SCHEMAS_TEMPLATE, ".json");
+                supportingFiles.add(new SupportingFile("body_validation.mustache",
+                        appFolder + File.separator + controllerFolder + File.separator + "concerns", "body_validation.rb"));
+            }
+
+            if (convertPropertyToBooleanAndWriteBack(PAGINATION)) {
+                supportingFiles.add(new SupportingFile("pagination.mustache",
+                        appFolder + File.separator + controllerFolder + File.separator + "concerns", "pagination.rb"));
+            }
+
+            Object diffAgainst = additionalProperties.get(DIFF_AGAINST);
+            // DIFF_AGAINST relies on the manifest to know how the output was generated before
+            if (convertPropertyToBooleanAndWriteBack(INCREMENTAL) || (diffAgainst != null && StringUtils.isNotBlank(diffAgainst.toString()))) {
+                manifest = new GenerationManifest(generatorVersion(), templateHash());
+                previousManifest = GenerationManifest.read(new File(outputFolder));
+            }
+
+            if (outputSink != null) {
+                // DefaultGenerator creates the folder of every supporting file even though nothing lands in it
+                for (SupportingFile supportingFile : supportingFiles) {
+                    File folder = new File(outputFolder, supportingFile.folder);
+                    for (; folder != null && !folder.exists(); folder = folder.getParentFile()) {
+                        missingFolders.add(folder);
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public void preprocessOpenAPI(OpenAPI openAPI) {
+        try (GenerationMetrics.Span span = metrics.start(GenerationMetrics.PREPROCESS_OPENAPI, getName())) {
+            super.preprocessOpenAPI(openAPI);
+
+            if (!modelTemplateFiles.isEmpty()) {
+                responseSerializers = new ResponseSerializers(openAPI, this);
+            }
+            if (Boolean.TRUE.equals(additionalProperties.get(BODY_SCHEMAS))) {
+                bodySchemas = new BodySchemas(openAPI);
+            }
+            Object diffAgainst = additionalProperties.get(DIFF_AGAINST);
+            if (diffAgainst != null && StringUtils.isNotBlank(diffAgainst.toString())) {
+                changeSet = new SpecDiff(this).diff(readBaseSpec(diffAgainst.toString()), openAPI);
+                LOGGER.info("changes since " + diffAgainst + ": " + changeSet);
+            }
+            if (Boolean.TRUE.equals(additionalProperties.get(PAGINATION))) {
+                Object maxPageSize = additionalProperties.get(MAX_PAGE_SIZE);
+                collectionEndpoints = new CollectionEndpoints(openAPI, this,
+                        maxPageSize == null ? DEFAULT_MAX_PAGE_SIZE : Integer.parseInt(maxPageSize.toString()));
+            }
+        }
+    }
 
-        supportingFiles
-                .add(new SupportingFile("routes.mustache", configFolder, "routes.rb"));
+    /**
+     * Parses the spec of {@link #DIFF_AGAINST} the way {@code CodegenConfigurator} parses the
+     * input spec, so both models are resolved and flattened alike.
+     */
+    protected OpenAPI readBaseSpec(String location) {
+        ParseOptions options = new ParseOptions();
+        options.setResolve(true);
+        options.setFlatten(true);
+        OpenAPI base = new OpenAPIV3Parser().read(location, null, options);
+        if (base == null) {
+            throw new IllegalArgumentException("Could not read " + DIFF_AGAINST + " spec " + location);
+        }
+        return base;
+    }
+
+    @Override
+    public String modelFileFolder() {
+        return outputFolder + File.separator + appFolder + File.separator + serializerFolder;
+    }
+
+    @Override
+    public String toModelFilename(String name) {
+        return RubyIdentifiers.underscore(toModelName(name));
+    }
+
+    @Override
+    public Map<String, Object> postProcessModels(Map<String, Object> objs) {
+        objs = super.postProcessModels(objs);
+        if (responseSerializers != null) {
+            @SuppressWarnings("unchecked")
+            List<Map<String, Object>> models = (List<Map<String, Object>>) objs.get("models");
+            for (Map<String, Object> model : models) {
+                for (CodegenProperty property : ((CodegenModel) model.get("model")).vars) {
+                    property.getVendorExtensions().put(SERIALIZER_VALUE_EXTENSION, responseSerializers.valueOf(property));
+                }
+            }
+        }
+        return objs;
+    }
+
+    @Override
+    public Map<String, Object> postProcessAllModels(Map<String, Object> objs) {
+        objs = super.postProcessAllModels(objs);
+        if (responseSerializers == null) {
+            return objs;
+        }
+
+        // only returned models get a serializer
+        Map<String, Object> serialized = new LinkedHashMap<>();
+        for (Map.Entry<String, Object> entry : objs.entrySet()) {
+            if (responseSerializers.isSerialized(entry.getKey())) {
+                serialized.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return serialized;
+    }
+
+    @Override
+    public TemplateEngine getTemplateEngine() {
+        TemplateEngine templateEngine = super.getTemplateEngine();
+        if (templateEngine == null) {
+            return null;
+        }
+        if (meteredTemplateEngine == null || sourceTemplateEngine != templateEngine) {
+            sourceTemplateEngine = templateEngine;
+            // the stock handlebars engine recompiles every template on every render
+            TemplateEngine engine = templateEngine instanceof HandlebarTemplateEngine
+                    ? new CachedTemplateEngine(this, templateHashes())
+                    : templateEngine;
+            meteredTemplateEngine = new MeteredTemplateEngine(engine, metrics);
+        }
+        // in parallel mode Rails5Generator renders on the executor when the file is written
+        return executor == null ? meteredTemplateEngine : new DeferredTemplateEngine(meteredTemplateEngine);
+    }
+
+    public ExecutorService getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Enables parallel post-processing of operation groups on the given executor. Only
+     * {@link Rails5Generator} can render in this mode, it must be called before generation.
+     */
+    public void setExecutor(ExecutorService executor) {
+        this.executor = executor;
+        pendingGroups.clear();
+    }
+
+    /**
+     * Completes once the operation group of the given template data is post-processed.
+     */
+    public CompletableFuture<Void> afterPostProcessing(Map<String, Object> templateData) {
+        CompletableFuture<Void> group = pendingGroups.get(templateData);
+        return group == null ? CompletableFuture.completedFuture(null) : group;
+    }
+
+    protected void awaitPostProcessing() {
+        CompletableFuture.allOf(pendingGroups.values().toArray(new CompletableFuture[0])).join();
+    }
+
+    public GenerationMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * The writer of {@code config/routes.rb} in streaming mode, or null.
+     */
+    public RoutesWriter getRoutesWriter() {
+        return routesWriter;
+    }
+
+    /**
+     * The {@link #SWAGGER_YAML_FILE} streamed by this run, or null.
+     */
+    public File getSwaggerYamlFile() {
+        return swaggerYamlFile;
+    }
+
+    /**
+     * Whether the {@link #SWAGGER_YAML_FILE} was written, false if its content was unchanged.
+     */
+    public boolean isSwaggerYamlChanged() {
+        return swaggerYamlChanged;
+    }
+
+    /**
+     * Whether {@link #SHARD_BY} splits the output into shards.
+     */
+    public boolean isSharded() {
+        return additionalProperties.get(SHARD_BY) != null;
+    }
+
+    /**
+     * Shard of an operation group, by controller file name and first path: the controller file
+     * name, or the first static segment of the path, e.g. {@code store} for
+     * {@code /store/order/{orderId}}.
+     */
+    protected String shardOf(String controller, String path) {
+        if (SHARD_BY_TAG.equals(additionalProperties.get(SHARD_BY))) {
+            return controller;
+        }
+        String segment = "";
+        for (String part : path.split("/")) {
+            if (!part.isEmpty() && !part.startsWith("{")) {
+                segment = part;
+                break;
+            }
+        }
+        String shard = RubyIdentifiers.underscore(segment.replaceAll("[^A-Za-z0-9_]", "_"));
+        if (shard.isEmpty()) {
+            return "root";
+        }
+        // shards are Ruby modules
+        return Character.isDigit(shard.charAt(0)) ? "shard_" + shard : shard;
+    }
+
+    /**
+     * Whether the files of an operation group exist and {@link #DIFF_AGAINST} found nothing
+     * affecting them.
+     */
+    protected boolean isUnaffected(String tag) {
+        if (changeSet == null || outputSink != null || changeSet.affects(toApiFilename(tag)) || !isSameGeneration()) {
+            return false;
+        }
+        for (String templateName : apiTemplateFiles().keySet()) {
+            if (!new File(apiFilename(templateName, tag)).exists()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Whether the previous run used the generator, templates and options of this one. Otherwise
+     * every controller may differ, whatever changed in the spec.
+     */
+    protected boolean isSameGeneration() {
+        if (sameGeneration == null) {
+            sameGeneration = manifest.isCompatible(previousManifest) && optionsHash().equals(previousManifest.getOptionsHash());
+            if (!sameGeneration) {
+                LOGGER.info("re-rendering every controller, the generator, templates or options changed since the last run");
+            }
+        }
+        return sameGeneration;
+    }
+
+    /**
+     * Operation id of a spec operation as {@link #fromOperation} names its action, generated
+     * from path and method if the spec has none.
+     */
+    public String toOperationId(Operation operation, String path, String httpMethod) {
+        return toOperationId(getOrGenerateOperationId(operation, path, httpMethod));
+    }
+
+    public OutputSink getOutputSink() {
+        return outputSink;
+    }
+
+    /**
+     * Writes the generated files into the given sink instead of the output folder, which is
+     * then only used to name them. Must be called before generation starts.
+     */
+    public void setOutputSink(OutputSink outputSink) {
+        this.outputSink = outputSink;
+    }
+
+    /**
+     * Folders that did not exist when the options were processed for an output sink, deepest
+     * first, so the generator can remove those it created for nothing.
+     */
+    public Set<File> getMissingFolders() {
+        return missingFolders;
+    }
+
+    public SpecDiff.ChangeSet getChangeSet() {
+        return changeSet;
+    }
+
+    /**
+     * Renders the routes of the pending operation group into the routes writer, then releases
+     * what its controller needed.
+     */
+    @SuppressWarnings("unchecked")
+    protected void flushRoutes() {
+        Map<String, Object> group = pendingRoutes;
+        pendingRoutes = null;
+        if (group == null) {
+            return;
+        }
+
+        afterPostProcessing(group).join();
+        List<CodegenOperation> operations = (List<CodegenOperation>) ((Map<String, Object>) group.get("operations")).get("operation");
+
+        Map<String, Object> data = group;
+        if (Boolean.TRUE.equals(additionalProperties.get("resourceRoutes"))) {
+            // scoped per controller, resources of other controllers are not known yet
+            RouteTable table = new RouteTable();
+            Object basePath = group.get("basePathWithoutHost");
+            String controller = String.valueOf(group.get("classVarName"));
+            for (CodegenOperation operation : operations) {
+                table.add(basePath == null ? "" : basePath.toString(), controller, operation);
+            }
+            data = Collections.singletonMap("routeScopes", table.getScopes());
+        }
+
+        appendRoutes("_routes_group.mustache", data);
+        if (executor == null) {
+            releaseOperations(operations);
+        }
+    }
+
+    protected void finishRoutes() {
+        flushRoutes();
+        appendRoutes("_routes_end.mustache", additionalProperties);
+
+        String key = relativize(routesWriter.getFile().getPath());
+        try (GenerationMetrics.Span span = metrics.start(GenerationMetrics.WRITE, key)) {
+            if (routesWriter.commit()) {
+                LOGGER.info("writing file " + routesWriter.getFile());
+            } else {
+                LOGGER.info("unchanged file " + routesWriter.getFile());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write " + key, e);
+        }
+    }
+
+    protected void appendRoutes(String templateName, Map<String, Object> data) {
+        try {
+            if (routesWriter.isEmpty()) {
+                routesWriter.append(renderTemplate("_routes_begin.mustache", additionalProperties));
+            }
+            routesWriter.append(renderTemplate(templateName, data));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write " + routesWriter.getFile(), e);
+        }
+    }
+
+    /**
+     * Renders a template outside of DefaultGenerator, on the calling thread.
+     */
+    protected String renderTemplate(String templateName, Map<String, Object> data) throws IOException {
+        String templateFile = embeddedTemplateDir() + File.separator + templateName;
+        if (customTemplateDir() != null && new File(customTemplateDir(), templateName).isFile()) {
+            templateFile = customTemplateDir() + File.separator + templateName;
+        }
+        getTemplateEngine();
+        return meteredTemplateEngine.getRendered(templateFile, data);
+    }
+
+    /**
+     * In streaming mode, drops everything but what routes read from the operations of a group
+     * whose controller is written, since DefaultGenerator holds on to every group until all
+     * files are generated.
+     */
+    @SuppressWarnings("unchecked")
+    public void releaseOperations(Map<String, Object> templateData) {
+        Object operations = templateData.get("operations");
+        if (routesWriter != null && operations instanceof Map) {
+            releaseOperations((List<CodegenOperation>) ((Map<String, Object>) operations).get("operation"));
+        }
+    }
+
+    protected void releaseOperations(List<CodegenOperation> operations) {
+        for (CodegenOperation operation : operations) {
+            // httpMethod, path, pathParams, baseName and nickname are kept for the routes
+            operation.allParams = null;
+            operation.bodyParam = null;
+            operation.bodyParams = Collections.emptyList();
+            operation.queryParams = Collections.emptyList();
+            operation.headerParams = Collections.emptyList();
+            operation.cookieParams = Collections.emptyList();
+            operation.formParams = Collections.emptyList();
+            operation.requiredParams = Collections.emptyList();
+            operation.responses = null;
+            operation.examples = null;
+            operation.requestBodyExamples = null;
+            operation.contents = null;
+            operation.summary = null;
+            operation.notes = null;
+            operation.unescapedNotes = null;
+            operation.getVendorExtensions().clear();
+        }
+    }
+
+    /**
+     * Discards a routes file that was not completely streamed, e.g. because generation failed.
+     */
+    public void closeRoutes() throws IOException {
+        pendingRoutes = null;
+        if (routesWriter != null) {
+            routesWriter.close();
+        }
+    }
+
+    /**
+     * Records into the given metrics instead, e.g. to keep the parse time measured before this
+     * generator existed in the same report. Must be called before generation starts.
+     */
+    public void setMetrics(GenerationMetrics metrics) {
+        this.metrics = metrics;
+        this.meteredTemplateEngine = null;
+    }
+
+    @Override
+    public boolean shouldOverwrite(String filename) {
+        if (!upToDateFiles.isEmpty() && upToDateFiles.contains(relativize(filename))) {
+            return false;
+        }
+        return super.shouldOverwrite(filename);
+    }
+
+    /**
+     * Persists the inputs of this run so the next incremental run can skip unchanged files.
+     * Must only be called once generation completed successfully.
+     */
+    public void writeManifest() throws IOException {
+        if (manifest != null) {
+            manifest.setOptionsHash(optionsHash());
+            manifest.write(new File(outputFolder));
+        }
+        if (changeSet != null) {
+            if (outputSink != null) {
+                outputSink.write(SpecDiff.ChangeSet.FILE_NAME, changeSet.toBytes());
+            } else {
+                changeSet.write(new File(outputFolder));
+            }
+        }
+    }
+
+    public Set<String> getUpToDateFiles() {
+        return Collections.unmodifiableSet(upToDateFiles);
+    }
+
+    /**
+     * Files recorded by the previous run that this run no longer produces, e.g. controllers of
+     * tags removed from the spec.
+     */
+    public List<File> getStaleFiles() {
+        List<File> staleFiles = new ArrayList<>();
+        if (manifest != null && previousManifest != null) {
+            for (String file : previousManifest.getFiles().keySet()) {
+                if (!manifest.getFiles().containsKey(file)) {
+                    staleFiles.add(new File(outputFolder, file));
+                }
+            }
+        }
+        if (changeSet != null && outputSink == null) {
+            for (Map.Entry<String, String> removed : changeSet.getRemovedTags().entrySet()) {
+                if (isSharded()) {
+                    shards.putIfAbsent(removed.getKey(), shardOf(removed.getKey(), removed.getValue()));
+                }
+                for (String templateName : apiTemplateFiles().keySet()) {
+                    File file = new File(apiFilename(templateName, removed.getKey()));
+                    if (file.exists() && !staleFiles.contains(file)) {
+                        staleFiles.add(file);
+                    }
+                }
+            }
+        }
+        return staleFiles;
+    }
+
+    protected BodyParamIndex getBodyParamIndex() {
+        if (bodyParamIndex == null || !bodyParamIndex.isFor(this.openAPI)) {
+            bodyParamIndex = new BodyParamIndex(this.openAPI, this);
+        }
+        return bodyParamIndex;
+    }
+
+    protected InputDigester getInputDigester() {
+        if (inputDigester == null) {
+            // options change the rendered output as well
+            inputDigester = new InputDigester(this.openAPI, outputOptions().toString());
+        }
+        return inputDigester;
+    }
+
+    /**
+     * The options the rendered output depends on. generatedDate is volatile, the others only
+     * change how the output is produced.
+     */
+    protected Map<String, Object> outputOptions() {
+        Map<String, Object> options = new TreeMap<>();
+        for (Map.Entry<String, Object> entry : additionalProperties.entrySet()) {
+            Object value = entry.getValue();
+            if (!OUTPUT_NEUTRAL_OPTIONS.contains(entry.getKey())
+                    && (value instanceof CharSequence || value instanceof Number || value instanceof Boolean)) {
+                options.put(entry.getKey(), value);
+            }
+        }
+        return options;
+    }
+
+    protected String optionsHash() {
+        return InputDigester.digest(outputOptions().toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    protected void trackInputs(String filename, String hash) {
+        String key = relativize(filename);
+        manifest.getFiles().put(key, hash);
+
+        if (manifest.isCompatible(previousManifest)
+                && hash.equals(previousManifest.getFiles().get(key))
+                && new File(filename).exists()) {
+            upToDateFiles.add(key);
+        }
+    }
+
+    protected String relativize(String filename) {
+        Path root = Paths.get(outputFolder).toAbsolutePath().normalize();
+        return root.relativize(Paths.get(filename).toAbsolutePath().normalize()).toString().replace(File.separatorChar, '/');
+    }
+
+    protected String generatorVersion() {
+        String version = Rails5Codegen.class.getPackage().getImplementationVersion();
+        if (version == null) {
+            version = "dev";
+        }
+        // the compiled generator itself, so unreleased builds invalidate old manifests too
+        try (InputStream in = Rails5Codegen.class.getResourceAsStream(Rails5Codegen.class.getSimpleName() + ".class")) {
+            return in == null ? version : version + "+" + InputDigester.digest(in.readAllBytes());
+        } catch (IOException e) {
+            LOGGER.warn("Unable to hash the generator class: " + e.getMessage());
+            return version;
+        }
+    }
+
+    /**
+     * Hash over every template this generator may render or include, computed once per run.
+     */
+    protected String templateHash() {
+        return InputDigester.digest(templateHashes());
+    }
+
+    /**
+     * Hash of every template this generator may render or include with the options of this run,
+     * by template name.
+     */
+    protected Map<String, String> templateHashes() {
+        if (templateHashes != null) {
+            return templateHashes;
+        }
+
+        Set<String> templateNames = new TreeSet<>(apiTemplateFiles().keySet());
+        templateNames.addAll(modelTemplateFiles().keySet());
+        templateNames.addAll(PARTIAL_TEMPLATES);
+        for (SupportingFile supportingFile : supportingFiles) {
+            templateNames.add(supportingFile.templateFile);
+        }
+        if (customTemplateDir() != null) {
+            // custom templates may include partials of their own
+            String[] customTemplates = new File(customTemplateDir()).list((dir, name) -> name.endsWith(".mustache"));
+            if (customTemplates != null) {
+                templateNames.addAll(Arrays.asList(customTemplates));
+            }
+        }
+
+        Map<String, String> hashes = new TreeMap<>();
+        for (String templateName : templateNames) {
+            hashes.put(templateName, InputDigester.digest(readTemplateBytes(templateName)));
+        }
+        templateHashes = Collections.unmodifiableMap(hashes);
+        return templateHashes;
+    }
+
+    protected byte[] readTemplateBytes(String templateName) {
+        try {
+            if (customTemplateDir() != null) {
+                File custom = new File(customTemplateDir(), templateName);
+                if (custom.isFile()) {
+                    return Files.readAllBytes(custom.toPath());
+                }
+            }
+            String resource = embeddedTemplateDir() + "/" + templateName;
+            try (InputStream in = getClass().getClassLoader().getResourceAsStream(resource)) {
+                return in == null ? new byte[0] : in.readAllBytes();
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Unable to read template " + templateName + ": " + e.getMessage());
+            return templateName.getBytes(StandardCharsets.UTF_8);
+        }
     }
 
     @Override
     public Map<String, Object> postProcessSupportingFileData(Map<String, Object> objs) {
+        // routes read every operation group
+        awaitPostProcessing();
+
+        try (GenerationMetrics.Span span = metrics.start(GenerationMetrics.POST_PROCESS_SUPPORTING_FILE_DATA, getName())) {
+            return postProcessSupportingFiles(objs);
+        }
+    }
+
+    protected Map<String, Object> postProcessSupportingFiles(Map<String, Object> objs) {
+        List<String> routeShards = new ArrayList<>(new TreeSet<>(shards.values()));
+        if (isSharded()) {
+            objs.put("routeShards", routeShards);
+        }
+
+        if (manifest != null) {
+            // the loader of a sharded output only changes with the shards themselves
+            String hash = isSharded()
+                    ? InputDigester.digest(String.join(",", routeShards).getBytes(StandardCharsets.UTF_8))
+                    : InputDigester.digest(groupHashes);
+            for (SupportingFile supportingFile : supportingFiles) {
+                if ("routes.mustache".equals(supportingFile.templateFile)) {
+                    trackInputs(outputFolder + File.separator + supportingFile.folder + File.separator
+                            + supportingFile.destinationFilename, hash);
+                }
+            }
+            if (routesWriter != null) {
+                // always streamed, the writer leaves it untouched if unchanged
+                manifest.getFiles().put(relativize(routesWriter.getFile().getPath()), hash);
+            }
+        }
+
+        if (routesWriter != null) {
+            finishRoutes();
+        } else if (ROUTES_STYLE_RESOURCES.equals(additionalProperties.get(ROUTES_STYLE)) && !isSharded()) {
+            @SuppressWarnings("unchecked")
+            Map<String, Object> apiInfo = (Map<String, Object>) objs.get("apiInfo");
+            @SuppressWarnings("unchecked")
+            List<Map<String, Object>> apis = apiInfo == null ? null : (List<Map<String, Object>>) apiInfo.get("apis");
+            if (apis != null) {
+                objs.put("routeScopes", RouteTable.of(apis).getScopes());
+            }
+        }
+
         OpenAPI openAPI = (OpenAPI) objs.get("openAPI");
 
         if (openAPI != null) {
-            try {
-                SimpleModule module = new SimpleModule();
-                module.addSerializer(Double.class, new JsonSerializer<Double>() {
-                    @Override
-                    public void serialize(Double val, JsonGenerator jgen,
-                            SerializerProvider provider) throws IOException, JsonProcessingException {
-                        jgen.writeNumber(new BigDecimal(val));
+            // only serialized if a template prints it
+            SwaggerYaml swaggerYaml = new SwaggerYaml(openAPI);
+            objs.put("swagger-yaml", swaggerYaml);
+
+            String yamlFile = (String) additionalProperties.get(SWAGGER_YAML_FILE);
+            if (StringUtils.isNotBlank(yamlFile)) {
+                // streamed here rather than rendered, the generator counts it like any other file
+                File file = new File(outputFolder, yamlFile);
+                String key = relativize(file.getPath());
+                try {
+                    if (outputSink != null) {
+                        try (OutputStream out = outputSink.open(key)) {
+                            swaggerYaml.writeTo(out);
+                        }
+                        swaggerYamlChanged = true;
+                        LOGGER.info("writing entry " + key);
+                    } else {
+                        swaggerYamlChanged = swaggerYaml.writeTo(file);
+                        LOGGER.info((swaggerYamlChanged ? "writing file " : "unchanged file ") + file);
                     }
-                });
-                objs.put("swagger-yaml", Yaml.mapper().registerModule(module).writeValueAsString(openAPI));
-            } catch (JsonProcessingException e) {
-                LOGGER.error(e.getMessage(), e);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Could not write " + file, e);
+                }
+                swaggerYamlFile = file;
+                objs.put("swagger-yaml-file", yamlFile);
+
+                if (manifest != null) {
+                    // always streamed and left untouched if unchanged, tracked so that it is
+                    // deleted once the option points elsewhere
+                    manifest.getFiles().put(key, InputDigester.digest(key.getBytes(StandardCharsets.UTF_8)));
+                }
             }
         }
 
@@ -292,6 +1226,9 @@ public class Rails5Codegen extends DefaultCodegenConfig {
     @Override
     public void addHandlebarHelpers(Handlebars handlebars) {
         super.addHandlebarHelpers(handlebars);
+        // _param and _param_rule include themselves for nested body fields
+        handlebars.infiniteLoops(true);
         handlebars.registerHelpers(ConditionalHelpers.class);
+        handlebars.registerHelpers(new Rails5Helper());
     }
 }
@@ -0,0 +1,278 @@
+package trungvitlonx.swagger.generator.rails5;
+
+import io.swagger.codegen.v3.DefaultGenerator;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link DefaultGenerator} with a write-if-changed output stage.
+ *
+ * Rendered files whose bytes match what is already on disk are not rewritten, so their
+ * mtime is preserved. With {@link Rails5Codegen#INCREMENTAL} enabled, files that disappeared
+ * from the spec are deleted and the manifest is persisted once generation succeeded.
+ *
+ * The whole run and every write are measured in the {@link GenerationMetrics} of the codegen.
+ *
+ * With {@link Rails5Codegen#PARALLELISM} above 1, operation groups are post-processed and their
+ * controllers rendered and written on a pool of that many threads. The generator thread only
+ * collects the work, the output is the same as the sequential one.
+ *
+ * With {@link Rails5Codegen#STREAM_ROUTES} enabled, {@code config/routes.rb} is written by the
+ * codegen through its {@link RoutesWriter} and counted here like any other file, as is the
+ * {@link Rails5Codegen#SWAGGER_YAML_FILE} the codegen streams.
+ *
+ * With an {@link OutputSink} set on the codegen, every file goes into the sink instead of the
+ * output folder and counts as written. The folders {@link DefaultGenerator} creates for supporting
+ * files anyway are removed again if they did not exist before. Files are then rendered
+ * sequentially, whatever the parallelism, so that they reach the sink in the same order on every run.
+ */
+public class Rails5Generator extends DefaultGenerator {
+    private static final int BUFFER_SIZE = 8192;
+
+    private final AtomicInteger written = new AtomicInteger();
+    private final AtomicInteger skipped = new AtomicInteger();
+    private final AtomicInteger deleted = new AtomicInteger();
+    private final GenerationMetrics fallbackMetrics = new GenerationMetrics();
+    private final List<CompletableFuture<Void>> pendingWrites = Collections.synchronizedList(new ArrayList<>());
+    private final List<CompletableFuture<Void>> groupWrites = new ArrayList<>();
+    private Map<String, Object> writingGroup;
+    private ExecutorService executor;
+
+    @Override
+    public List<File> generate() {
+        final int parallelism = parallelism();
+        if (parallelism > 1 && config instanceof Rails5Codegen) {
+            // rendering is CPU bound, a pool sized to the requested parallelism fits better than a thread per file
+            executor = new ForkJoinPool(parallelism);
+            ((Rails5Codegen) config).setExecutor(executor);
+        }
+
+        final List<File> files;
+        try (GenerationMetrics.Span span = getMetrics().start(GenerationMetrics.GENERATE, config.getName())) {
+            files = super.generate();
+            releaseWritingGroup();
+            CompletableFuture.allOf(pendingWrites.toArray(new CompletableFuture[0])).join();
+        } catch (CompletionException e) {
+            throw new RuntimeException("Could not generate files", e.getCause());
+        } finally {
+            pendingWrites.clear();
+            groupWrites.clear();
+            writingGroup = null;
+            closeRoutes();
+            DeferredTemplateEngine.takePending();
+            if (executor != null) {
+                ((Rails5Codegen) config).setExecutor(null);
+                executor.shutdown();
+                executor = null;
+            }
+            if (config instanceof Rails5Codegen) {
+                // only succeeds for the folders left empty
+                ((Rails5Codegen) config).getMissingFolders().forEach(File::delete);
+            }
+        }
+
+        if (config instanceof Rails5Codegen) {
+            final Rails5Codegen codegen = (Rails5Codegen) config;
+            skipped.addAndGet(codegen.getUpToDateFiles().size());
+
+            final RoutesWriter routes = codegen.getRoutesWriter();
+            if (routes != null && routes.isCommitted()) {
+                files.add(routes.getFile());
+                (routes.isChanged() ? written : skipped).incrementAndGet();
+            }
+            if (codegen.getSwaggerYamlFile() != null) {
+                files.add(codegen.getSwaggerYamlFile());
+                (codegen.isSwaggerYamlChanged() ? written : skipped).incrementAndGet();
+            }
+
+            for (File stale : codegen.getStaleFiles()) {
+                if (stale.delete()) {
+                    LOGGER.info("deleted stale file " + stale);
+                    deleted.incrementAndGet();
+                }
+            }
+
+            try {
+                codegen.writeManifest();
+            } catch (IOException e) {
+                throw new RuntimeException("Could not write generation manifest", e);
+            }
+        }
+
+        LOGGER.info(String.format("%d files written, %d skipped, %d deleted", getWritten(), getSkipped(), getDeleted()));
+        return files;
+    }
+
+    @Override
+    public File writeToFile(String filename, String contents) throws IOException {
+        final DeferredTemplateEngine.Render render = DeferredTemplateEngine.takePending();
+        if (render == null) {
+            return write(filename, contents);
+        }
+
+        // DefaultGenerator passes all files of a group before the next one, so the previous group is complete
+        if (render.getTemplateData() != writingGroup) {
+            releaseWritingGroup();
+            writingGroup = render.getTemplateData();
+        }
+
+        // rendered in parallel mode: render and write once the operation group is post-processed
+        final CompletableFuture<Void> pending = ((Rails5Codegen) config).afterPostProcessing(render.getTemplateData()).thenRunAsync(() -> {
+            try {
+                write(filename, render.render());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, executor);
+        groupWrites.add(pending);
+        pendingWrites.add(pending);
+        return new File(filename);
+    }
+
+    /**
+     * Releases the operations of the group whose files were passed last, once all of them
+     * are rendered. Releasing after the first one would clear what the others still render.
+     */
+    private void releaseWritingGroup() {
+        if (writingGroup == null) {
+            return;
+        }
+        final Map<String, Object> group = writingGroup;
+        pendingWrites.add(CompletableFuture.allOf(groupWrites.toArray(new CompletableFuture[0]))
+                .thenRun(() -> ((Rails5Codegen) config).releaseOperations(group)));
+        groupWrites.clear();
+        writingGroup = null;
+    }
+
+    private File write(String filename, String contents) throws IOException {
+        final String key = config instanceof Rails5Codegen ? ((Rails5Codegen) config).relativize(filename) : filename;
+        final OutputSink sink = config instanceof Rails5Codegen ? ((Rails5Codegen) config).getOutputSink() : null;
+
+        try (GenerationMetrics.Span span = getMetrics().start(GenerationMetrics.WRITE, key)) {
+            final File file = new File(filename);
+            final byte[] bytes = contents.getBytes(StandardCharsets.UTF_8);
+
+            if (sink != null) {
+                sink.write(key, bytes);
+                LOGGER.info("writing entry " + key);
+                written.incrementAndGet();
+                return file;
+            }
+
+            if (hasContent(file, bytes)) {
+                LOGGER.info("unchanged file " + filename);
+                skipped.incrementAndGet();
+                return file;
+            }
+
+            written.incrementAndGet();
+            return super.writeToFile(filename, contents);
+        }
+    }
+
+    private void closeRoutes() {
+        if (config instanceof Rails5Codegen) {
+            try {
+                ((Rails5Codegen) config).closeRoutes();
+            } catch (IOException e) {
+                LOGGER.warn("Could not discard incomplete routes: " + e.getMessage());
+            }
+        }
+    }
+
+    private int parallelism() {
+        if (config instanceof Rails5Codegen && ((Rails5Codegen) config).getOutputSink() != null) {
+            // archive entries follow the order files are written in
+            return 1;
+        }
+        final Object value = config.additionalProperties().get(Rails5Codegen.PARALLELISM);
+        if (value instanceof Number) {
+            return ((Number) value).intValue();
+        }
+        return value == null ? 1 : Integer.parseInt(value.toString());
+    }
+
+    public GenerationMetrics getMetrics() {
+        return config instanceof Rails5Codegen ? ((Rails5Codegen) config).getMetrics() : fallbackMetrics;
+    }
+
+    public int getWritten() {
+        return written.get();
+    }
+
+    public int getSkipped() {
+        return skipped.get();
+    }
+
+    public int getDeleted() {
+        return deleted.get();
+    }
+
+    /**
+     * Compares the digest of the rendered bytes against the file on disk, reading the file in
+     * fixed-size chunks instead of loading it.
+     */
+    static boolean hasContent(File file, byte[] bytes) throws IOException {
+        if (!file.isFile() || file.length() != bytes.length) {
+            return false;
+        }
+
+        final MessageDigest expected = newDigest();
+        expected.update(bytes);
+
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            return MessageDigest.isEqual(expected.digest(), digest(in).digest());
+        }
+    }
+
+    /**
+     * Compares two files by size and digest.
+     */
+    static boolean hasContent(Path file, Path content) throws IOException {
+        if (!Files.isRegularFile(file) || Files.size(file) != Files.size(content)) {
+            return false;
+        }
+
+        try (InputStream expected = Files.newInputStream(content); InputStream in = Files.newInputStream(file)) {
+            return MessageDigest.isEqual(digest(expected).digest(), digest(in).digest());
+        }
+    }
+
+    /**
+     * Digests a stream in fixed-size chunks.
+     */
+    static MessageDigest digest(InputStream in) throws IOException {
+        final MessageDigest digest = newDigest();
+        final byte[] buffer = new byte[BUFFER_SIZE];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            digest.update(buffer, 0, read);
+        }
+        return digest;
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package trungvitlonx.swagger.generator.rails5;
+
+import io.swagger.codegen.v3.CodegenOperation;
+import io.swagger.codegen.v3.CodegenProperty;
+import io.swagger.codegen.v3.CodegenResponse;
+import io.swagger.v3.oas.models.OpenAPI;
+import io.swagger.v3.oas.models.Operation;
+import io.swagger.v3.oas.models.PathItem;
+import io.swagger.v3.oas.models.media.ArraySchema;
+import io.swagger.v3.oas.models.media.ComposedSchema;
+import io.swagger.v3.oas.models.media.Content;
+import io.swagger.v3.oas.models.media.MediaType;
+import io.swagger.v3.oas.models.media.Schema;
+import io.swagger.v3.oas.models.responses.ApiResponse;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Component schemas returned by some operation, directly or nested in another returned schema,
+ * each of which gets a serializer in {@code app/serializers}.
+ *
+ * Serializers read every property through its accessor and build the JSON object with an
+ * explicit key list, so responses are not serialized through {@code as_json} reflection.
+ */
+public class ResponseSerializers {
+    private static final String REF_PREFIX = "#/components/schemas/";
+
+    private final Rails5Codegen codegen;
+    private final Set<String> schemaNames = new LinkedHashSet<>();
+    private final Set<String> modelNames = new HashSet<>();
+
+    public ResponseSerializers(OpenAPI openAPI, Rails5Codegen codegen) {
+        this.codegen = codegen;
+
+        final Map<String, Schema> schemas = openAPI.getComponents() == null || openAPI.getComponents().getSchemas() == null
+                ? Collections.emptyMap()
+                : openAPI.getComponents().getSchemas();
+        final Deque<Schema> pending = new ArrayDeque<>();
+        if (openAPI.getPaths() != null) {
+            for (PathItem path : openAPI.getPaths().values()) {
+                for (Operation operation : path.readOperations()) {
+                    if (operation.getResponses() != null) {
+                        for (ApiResponse response : operation.getResponses().values()) {
+                            addContent(pending, response.getContent());
+                        }
+                    }
+                }
+            }
+        }
+
+        // walk iteratively, nesting in large specs is deep enough to matter
+        while (!pending.isEmpty()) {
+            final Schema schema = pending.pop();
+            final String ref = schema.get$ref();
+            if (ref != null) {
+                final String name = ref.startsWith(REF_PREFIX) ? ref.substring(REF_PREFIX.length()) : ref;
+                if (schemas.containsKey(name) && schemaNames.add(name)) {
+                    modelNames.add(codegen.toModelName(name));
+                    pending.push(schemas.get(name));
+                }
+                continue;
+            }
+            if (schema instanceof ArraySchema && ((ArraySchema) schema).getItems() != null) {
+                pending.push(((ArraySchema) schema).getItems());
+            }
+            if (schema.getAdditionalProperties() instanceof Schema) {
+                pending.push((Schema) schema.getAdditionalProperties());
+            }
+            if (schema.getProperties() != null) {
+                for (Object property : schema.getProperties().values()) {
+                    pending.push((Schema) property);
+                }
+            }
+            if (schema instanceof ComposedSchema) {
+                final ComposedSchema composed = (ComposedSchema) schema;
+                addAll(pending, composed.getAllOf());
+                addAll(pending, composed.getAnyOf());
+                addAll(pending, composed.getOneOf());
+            }
+        }
+    }
+
+    private static void addContent(Deque<Schema> pending, Content content) {
+        if (content != null) {
+            for (MediaType mediaType : content.values()) {
+                if (mediaType.getSchema() != null) {
+                    pending.push(mediaType.getSchema());
+                }
+            }
+        }
+    }
+
+    private static void addAll(Deque<Schema> pending, List<Schema> schemas) {
+        if (schemas != null) {
+            for (Schema schema : schemas) {
+                pending.push(schema);
+            }
+        }
+    }
+
+    public boolean isSerialized(String schemaName) {
+        return schemaNames.contains(schemaName);
+    }
+
+    /**
+     * Ruby expression reading a property from {@code object}, serialized for JSON.
+     */
+    public String valueOf(CodegenProperty property) {
+        final String value = "object." + accessor(property.baseName);
+        if (property.items != null) {
+            final String serializer = serializer(property.items.complexType);
+            if (serializer == null) {
+                return value;
+            }
+            return "map".equals(property.containerType)
+                    ? value + "&.transform_values { |item| " + serializer + ".serialize(item) }"
+                    : serializer + ".serialize_many(" + value + ")";
+        }
+
+        final String serializer = serializer(property.complexType);
+        if (serializer != null) {
+            return serializer + ".serialize(" + value + ")";
+        } else if ("Date".equals(property.datatype) || "DateTime".equals(property.datatype)) {
+            return value + "&.iso8601";
+        } else if ("BigDecimal".equals(property.datatype)) {
+            // JSON.generate would print it in scientific notation
+            return value + "&.to_s('F')";
+        }
+        return value;
+    }
+
+    /**
+     * Suggested render call of an operation returning a serialized model, or null.
+     */
+    public String renderOf(CodegenOperation operation) {
+        final String serializer = serializer(operation.returnBaseType);
+        if (serializer == null || "map".equals(operation.returnContainer)) {
+            return null;
+        }
+
+        String status = "200";
+        if (operation.responses != null) {
+            for (CodegenResponse response : operation.responses) {
+                if (response.code != null && response.code.startsWith("2")) {
+                    status = response.code;
+                    break;
+                }
+            }
+        }
+
+        final String variable = resultVariable(operation);
+        return operation.returnContainer == null
+                ? serializer + ".dump(" + variable + "), status: " + status
+                : serializer + ".dump_many(" + variable + "), status: " + status;
+    }
+
+    /**
+     * Name of the local an action stub keeps its result in, e.g. {@code pet} or {@code pet_list}.
+     */
+    public static String resultVariable(CodegenOperation operation) {
+        if (operation.returnBaseType == null || !operation.returnBaseType.matches("[A-Za-z][A-Za-z0-9_]*")) {
+            return "result";
+        }
+        final String variable = RubyIdentifiers.underscore(operation.returnBaseType);
+        return operation.returnContainer == null ? variable : variable + "_list";
+    }
+
+    private String serializer(String modelName) {
+        return modelName != null && modelNames.contains(modelName) ? modelName + "Serializer" : null;
+    }
+
+    /**
+     * The reader of a property. Unlike variable names, reserved words are not escaped, an
+     * explicit receiver can call them.
+     */
+    private String accessor(String baseName) {
+        String name = baseName.replace('-', '_');
+        if (RubyIdentifiers.isUpperSnakeCase(name)) {
+            name = name.toLowerCase();
+        }
+        return RubyIdentifiers.underscore(name);
+    }
+}
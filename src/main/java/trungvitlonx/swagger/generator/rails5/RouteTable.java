@@ -0,0 +1,219 @@
+package trungvitlonx.swagger.generator.rails5;
+
+import io.swagger.codegen.v3.CodegenOperation;
+import io.swagger.codegen.v3.CodegenParameter;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Routes of {@link Rails5Codegen#ROUTES_STYLE_RESOURCES}: one {@code scope} per base path,
+ * holding a {@code resources ... only:} line per controller for its RESTful actions and an
+ * explicit {@code match} per remaining operation.
+ *
+ * An operation only joins the resources of its controller if its path is exactly the resource
+ * path, or the resource path plus the same member parameter as the other member actions, so
+ * every resource route matches what the spec declares. Explicit routes are listed first, so
+ * static segments like {@code /pets/findByTags} are not taken by {@code /pets/:petId}.
+ */
+public class RouteTable {
+    private static final Pattern RESOURCE_NAME = Pattern.compile("[a-z_][a-z0-9_]*");
+    private static final Pattern PATH_PARAM = Pattern.compile("\\{(.*?)}");
+
+    private final Map<String, Scope> scopes = new LinkedHashMap<>();
+
+    /**
+     * @param apis the {@code apiInfo.apis} of the supporting file data
+     */
+    @SuppressWarnings("unchecked")
+    public static RouteTable of(List<Map<String, Object>> apis) {
+        final RouteTable table = new RouteTable();
+        for (Map<String, Object> api : apis) {
+            final Object basePath = api.get("basePathWithoutHost");
+            final Map<String, Object> operations = (Map<String, Object>) api.get("operations");
+            final String controller = String.valueOf(api.get("classVarName"));
+            for (CodegenOperation operation : (List<CodegenOperation>) operations.get("operation")) {
+                table.add(basePath == null ? "" : basePath.toString(), controller, operation);
+            }
+        }
+        return table;
+    }
+
+    public void add(String basePath, String controller, CodegenOperation operation) {
+        final String path = basePath.isEmpty() ? "/" : basePath;
+        final Scope scope = scopes.computeIfAbsent(path, Scope::new);
+        final Resource resource = scope.resources.computeIfAbsent(operation.baseName.toLowerCase(),
+                name -> new Resource(name, controller));
+
+        if (!resource.add(controller, operation)) {
+            scope.routes.add(new Route(operation.httpMethod.toLowerCase(), toRailsPath(operation.path),
+                    controller, action(operation)));
+        }
+    }
+
+    /**
+     * Scopes in the order their first operation was added.
+     */
+    public List<Scope> getScopes() {
+        return new ArrayList<>(scopes.values());
+    }
+
+    /**
+     * Controller action of an operation, as rendered by {@code controller.mustache}.
+     */
+    public static String action(CodegenOperation operation) {
+        if (operation.getIsRestfulIndex()) {
+            return "index";
+        } else if (operation.getIsRestfulCreate()) {
+            return "create";
+        } else if (operation.getIsRestfulUpdate()) {
+            return "update";
+        } else if (operation.getIsRestfulShow()) {
+            return "show";
+        } else if (operation.getIsRestfulDestroy()) {
+            return "destroy";
+        }
+        return operation.nickname;
+    }
+
+    static String toRailsPath(String path) {
+        return PATH_PARAM.matcher(path).replaceAll(":$1");
+    }
+
+    public static class Scope {
+        private final String path;
+        private final List<Route> routes = new ArrayList<>();
+        private final Map<String, Resource> resources = new LinkedHashMap<>();
+
+        private Scope(String path) {
+            this.path = path;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public List<Route> getRoutes() {
+            return routes;
+        }
+
+        /**
+         * Resources with at least one action, in the order of their first operation.
+         */
+        public List<Resource> getResources() {
+            final List<Resource> result = new ArrayList<>();
+            for (Resource resource : resources.values()) {
+                if (!resource.actions.isEmpty()) {
+                    result.add(resource);
+                }
+            }
+            return result;
+        }
+    }
+
+    public static class Resource {
+        private final String name;
+        private final String controller;
+        private final List<String> actions = new ArrayList<>();
+        private String param;
+
+        private Resource(String name, String controller) {
+            this.name = name;
+            this.controller = controller;
+        }
+
+        /**
+         * @return whether the operation is routed by this resource
+         */
+        private boolean add(String controller, CodegenOperation operation) {
+            if (!operation.getIsRestful() || !RESOURCE_NAME.matcher(name).matches()
+                    || !this.controller.equals(controller)) {
+                return false;
+            }
+
+            final String action = action(operation);
+            final String collectionPath = "/" + name;
+            final boolean member = "show".equals(action) || "update".equals(action) || "destroy".equals(action);
+            if (actions.contains(action)) {
+                return false;
+            }
+            if (!member) {
+                if (!collectionPath.equals(operation.path)) {
+                    return false;
+                }
+            } else {
+                final CodegenParameter id = operation.pathParams.get(0);
+                if (!(collectionPath + "/{" + id.baseName + "}").equals(operation.path)
+                        || (param != null && !param.equals(id.baseName))) {
+                    return false;
+                }
+                param = id.baseName;
+            }
+
+            actions.add(action);
+            return true;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getController() {
+            return controller;
+        }
+
+        /**
+         * Actions as a Ruby symbol list, e.g. {@code :index, :show}.
+         */
+        public String getOnly() {
+            final StringBuilder only = new StringBuilder();
+            for (String action : actions) {
+                if (only.length() > 0) {
+                    only.append(", ");
+                }
+                only.append(':').append(action);
+            }
+            return only.toString();
+        }
+
+        /**
+         * The member parameter unless it is Rails' default {@code id}.
+         */
+        public String getParam() {
+            return "id".equals(param) ? null : param;
+        }
+    }
+
+    public static class Route {
+        private final String httpMethod;
+        private final String path;
+        private final String controller;
+        private final String action;
+
+        private Route(String httpMethod, String path, String controller, String action) {
+            this.httpMethod = httpMethod;
+            this.path = path;
+            this.controller = controller;
+            this.action = action;
+        }
+
+        public String getHttpMethod() {
+            return httpMethod;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public String getController() {
+            return controller;
+        }
+
+        public String getAction() {
+            return action;
+        }
+    }
+}
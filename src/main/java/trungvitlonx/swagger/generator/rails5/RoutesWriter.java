@@ -0,0 +1,106 @@
+package trungvitlonx.swagger.generator.rails5;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Incremental writer of {@code config/routes.rb} for {@link Rails5Codegen#STREAM_ROUTES}.
+ *
+ * Rendered chunks are encoded into a fixed-size buffer in front of a {@link FileChannel} on a
+ * temporary file, so neither the whole file nor the rendered routes of earlier groups are
+ * held in memory. {@link #commit()} replaces the target only if its content changed.
+ */
+public class RoutesWriter implements Closeable {
+    private static final int BUFFER_SIZE = 8192;
+
+    private final File file;
+    private Path tmp;
+    private Writer writer;
+    private boolean committed;
+    private boolean changed;
+
+    public RoutesWriter(File file) {
+        this.file = file;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Whether nothing was appended yet.
+     */
+    public boolean isEmpty() {
+        return writer == null;
+    }
+
+    public void append(CharSequence chunk) throws IOException {
+        if (committed) {
+            throw new IllegalStateException(file + " is already committed");
+        }
+        if (writer == null) {
+            final Path target = file.toPath().toAbsolutePath();
+            Files.createDirectories(target.getParent());
+            tmp = Files.createTempFile(target.getParent(), file.getName(), ".tmp");
+            final FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            writer = Channels.newWriter(channel, StandardCharsets.UTF_8.newEncoder(), BUFFER_SIZE);
+        }
+        writer.append(chunk);
+    }
+
+    /**
+     * Flushes the appended chunks into the target, leaving an existing file with the same
+     * content untouched.
+     *
+     * @return whether the file was written
+     */
+    public boolean commit() throws IOException {
+        if (writer == null) {
+            append("");
+        }
+        try {
+            writer.close();
+            writer = null;
+            changed = !Rails5Generator.hasContent(file.toPath(), tmp);
+            if (changed) {
+                Files.move(tmp, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            committed = true;
+            return changed;
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    public boolean isCommitted() {
+        return committed;
+    }
+
+    public boolean isChanged() {
+        return changed;
+    }
+
+    /**
+     * Discards everything appended since the writer was created unless it was committed.
+     */
+    @Override
+    public void close() throws IOException {
+        if (writer != null) {
+            try {
+                writer.close();
+            } finally {
+                writer = null;
+                Files.deleteIfExists(tmp);
+            }
+        }
+    }
+}
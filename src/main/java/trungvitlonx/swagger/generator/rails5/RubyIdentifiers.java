@@ -0,0 +1,125 @@
+package trungvitlonx.swagger.generator.rails5;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Regex-free versions of the identifier conversions {@link Rails5Codegen} relies on.
+ *
+ * {@link #underscore(String)} produces exactly what {@code DefaultCodegenConfig.underscore}
+ * does, in a single scan instead of four {@code replaceAll} passes.
+ */
+public final class RubyIdentifiers {
+
+    private RubyIdentifiers() {}
+
+    public static String underscore(String word) {
+        final int length = word.length();
+        final StringBuilder builder = new StringBuilder(length + 8);
+        boolean changed = false;
+
+        for (int i = 0; i < length; i++) {
+            final char c = word.charAt(i);
+
+            if (isUpper(c) && i > 0) {
+                final char previous = word.charAt(i - 1);
+                // ([a-z\d])([A-Z]) => $1_$2
+                // ([A-Z]+)([A-Z][a-z][a-z]+) => $1_$2, i.e. split before the last capital of a run
+                if (isLower(previous) || isDigit(previous)
+                        || (isUpper(previous) && i + 2 < length && isLower(word.charAt(i + 1)) && isLower(word.charAt(i + 2)))) {
+                    builder.append('_');
+                    changed = true;
+                }
+            }
+
+            switch (c) {
+                case '.':
+                    builder.append('/');
+                    changed = true;
+                    break;
+                case '$':
+                    builder.append("__");
+                    changed = true;
+                    break;
+                case '-':
+                case ' ':
+                    builder.append('_');
+                    changed = true;
+                    break;
+                default:
+                    builder.append(c);
+                    changed |= Character.toLowerCase(c) != c || c > 0x7f;
+            }
+        }
+
+        // toLowerCase() is locale sensitive and non ASCII may change length, keep its exact behaviour
+        return changed ? builder.toString().toLowerCase() : word;
+    }
+
+    /**
+     * Same as {@code name.matches("^[A-Z_]*$")}.
+     */
+    public static boolean isUpperSnakeCase(String name) {
+        for (int i = 0; i < name.length(); i++) {
+            final char c = name.charAt(i);
+            if (!isUpper(c) && c != '_') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Same as {@code name.matches("^\\d.*")}; {@code .} does not match line terminators.
+     */
+    public static boolean startsWithDigit(String name) {
+        if (name.isEmpty() || !isDigit(name.charAt(0))) {
+            return false;
+        }
+        for (int i = 1; i < name.length(); i++) {
+            final char c = name.charAt(i);
+            if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isUpper(char c) {
+        return c >= 'A' && c <= 'Z';
+    }
+
+    private static boolean isLower(char c) {
+        return c >= 'a' && c <= 'z';
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    /**
+     * Memoizes a name conversion. Bounded so that a run over a huge spec cannot grow it
+     * without limit; once full it starts over, which is cheaper than tracking recency.
+     */
+    public static final class Cache {
+        private final int maxSize;
+        private final Map<String, String> values = new ConcurrentHashMap<>();
+
+        public Cache(int maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public String get(String name, Function<String, String> conversion) {
+            String value = values.get(name);
+            if (value == null) {
+                value = conversion.apply(name);
+                if (values.size() >= maxSize) {
+                    values.clear();
+                }
+                values.put(name, value);
+            }
+            return value;
+        }
+    }
+}
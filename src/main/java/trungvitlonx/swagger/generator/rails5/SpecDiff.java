@@ -0,0 +1,419 @@
+package trungvitlonx.swagger.generator.rails5;
+
+import io.swagger.v3.core.util.Json;
+import io.swagger.v3.oas.models.OpenAPI;
+import io.swagger.v3.oas.models.Operation;
+import io.swagger.v3.oas.models.PathItem;
+import io.swagger.v3.oas.models.parameters.Parameter;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.MissingNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Change set between two specs, in the terms of the generated code.
+ *
+ * Operations are matched by their operation id as {@link Rails5Codegen#toOperationId} turns it
+ * into an action, so renaming a path keeps the operation and reports the path as changed.
+ * Parameters are matched by location and {@link Rails5Codegen#toParamName}, tags by the
+ * controller file they end up in. An operation also changed if a component it reaches through
+ * {@code $ref}, transitively, changed. Info and servers are rendered into every controller, a
+ * change to them affects all.
+ */
+public class SpecDiff {
+    private static final String COMPONENTS_PREFIX = "#/components/";
+    // compared one by one, the rest of an operation is compared as a whole
+    private static final Set<String> OPERATION_PARTS = new TreeSet<>(Arrays.asList(
+            "operationId", "tags", "parameters", "requestBody", "responses"));
+
+    public enum Kind { ADDED, REMOVED, CHANGED }
+
+    private final Rails5Codegen codegen;
+
+    public SpecDiff(Rails5Codegen codegen) {
+        this.codegen = codegen;
+    }
+
+    public ChangeSet diff(OpenAPI before, OpenAPI after) {
+        final JsonNode beforeComponents = components(before);
+        final JsonNode afterComponents = components(after);
+        final Map<String, OperationEntry> beforeOperations = index(before, beforeComponents);
+        final Map<String, OperationEntry> afterOperations = index(after, afterComponents);
+
+        final ChangeSet changes = new ChangeSet();
+        changes.global = !Objects.equals(tree(before.getInfo()), tree(after.getInfo()))
+                || !Objects.equals(tree(before.getServers()), tree(after.getServers()));
+
+        final Set<String> changedComponents = new TreeSet<>();
+        diffComponents(beforeComponents, afterComponents, changedComponents, changes);
+
+        final Set<String> operationIds = new TreeSet<>(beforeOperations.keySet());
+        operationIds.addAll(afterOperations.keySet());
+        for (String operationId : operationIds) {
+            final OperationEntry old = beforeOperations.get(operationId);
+            final OperationEntry current = afterOperations.get(operationId);
+            final OperationChange change = current == null
+                    ? new OperationChange(Kind.REMOVED, operationId, old)
+                    : old == null
+                    ? new OperationChange(Kind.ADDED, operationId, current)
+                    : compare(operationId, old, current, changedComponents);
+            if (change == null) {
+                continue;
+            }
+
+            changes.operations.add(change);
+            if (old != null) {
+                changes.affectedTags.addAll(old.tags);
+            }
+            if (current != null) {
+                changes.affectedTags.addAll(current.tags);
+            }
+        }
+
+        // controllers left without any operation
+        for (OperationEntry old : beforeOperations.values()) {
+            for (String tag : old.tags) {
+                if (!changes.removedTags.containsKey(tag) || old.path.compareTo(changes.removedTags.get(tag)) < 0) {
+                    changes.removedTags.put(tag, old.path);
+                }
+            }
+        }
+        for (OperationEntry current : afterOperations.values()) {
+            changes.removedTags.keySet().removeAll(current.tags);
+        }
+        return changes;
+    }
+
+    private OperationChange compare(String operationId, OperationEntry old, OperationEntry current, Set<String> changedComponents) {
+        final OperationChange change = new OperationChange(Kind.CHANGED, operationId, current);
+        if (!old.method.equals(current.method)) {
+            change.changes.add("method");
+        }
+        if (!old.path.equals(current.path)) {
+            change.changes.add("path");
+        }
+        if (!old.tags.equals(current.tags)) {
+            change.changes.add("tags");
+        }
+        if (!Objects.equals(old.tree.get("requestBody"), current.tree.get("requestBody"))) {
+            change.changes.add("requestBody");
+        }
+        if (!Objects.equals(old.tree.get("responses"), current.tree.get("responses"))) {
+            change.changes.add("responses");
+        }
+        if (!withoutParts(old.tree).equals(withoutParts(current.tree))) {
+            change.changes.add("operation");
+        }
+
+        final Set<String> params = new TreeSet<>(old.params.keySet());
+        params.addAll(current.params.keySet());
+        for (String param : params) {
+            final JsonNode oldParam = old.params.get(param);
+            final JsonNode currentParam = current.params.get(param);
+            if (currentParam == null) {
+                change.params.add(new Change(Kind.REMOVED, param));
+            } else if (oldParam == null) {
+                change.params.add(new Change(Kind.ADDED, param));
+            } else if (!oldParam.equals(currentParam)) {
+                change.params.add(new Change(Kind.CHANGED, param));
+            }
+        }
+
+        for (String ref : current.refs) {
+            if (changedComponents.contains(ref) || !old.refs.contains(ref)) {
+                change.changes.add(ref.substring(COMPONENTS_PREFIX.length()));
+            }
+        }
+        for (String ref : old.refs) {
+            if (!current.refs.contains(ref)) {
+                change.changes.add(ref.substring(COMPONENTS_PREFIX.length()));
+            }
+        }
+
+        return change.changes.isEmpty() && change.params.isEmpty() ? null : change;
+    }
+
+    private void diffComponents(JsonNode before, JsonNode after, Set<String> changedComponents, ChangeSet changes) {
+        final Set<String> types = new TreeSet<>();
+        before.fieldNames().forEachRemaining(types::add);
+        after.fieldNames().forEachRemaining(types::add);
+        for (String type : types) {
+            final Set<String> names = new TreeSet<>();
+            before.path(type).fieldNames().forEachRemaining(names::add);
+            after.path(type).fieldNames().forEachRemaining(names::add);
+            for (String name : names) {
+                final JsonNode old = before.path(type).path(name);
+                final JsonNode current = after.path(type).path(name);
+                if (old.equals(current)) {
+                    continue;
+                }
+                changedComponents.add(COMPONENTS_PREFIX + type + "/" + name);
+                if ("schemas".equals(type)) {
+                    changes.schemas.add(new Change(old.isMissingNode() ? Kind.ADDED : current.isMissingNode() ? Kind.REMOVED : Kind.CHANGED, name));
+                }
+            }
+        }
+    }
+
+    private Map<String, OperationEntry> index(OpenAPI openAPI, JsonNode components) {
+        final Map<String, OperationEntry> operations = new TreeMap<>();
+        if (openAPI.getPaths() == null) {
+            return operations;
+        }
+        for (Map.Entry<String, PathItem> path : openAPI.getPaths().entrySet()) {
+            final PathItem pathItem = path.getValue();
+            for (Map.Entry<PathItem.HttpMethod, Operation> method : pathItem.readOperationsMap().entrySet()) {
+                final String httpMethod = method.getKey().name().toLowerCase(Locale.ROOT);
+                final Operation operation = method.getValue();
+                final OperationEntry entry = new OperationEntry(httpMethod, path.getKey(), (ObjectNode) tree(operation));
+
+                final List<String> tags = operation.getTags() == null || operation.getTags().isEmpty()
+                        ? Collections.singletonList("default")
+                        : operation.getTags();
+                for (String tag : tags) {
+                    entry.tags.add(codegen.toApiFilename(codegen.sanitizeTag(tag)));
+                }
+
+                // operation parameters override path parameters of the same name and location
+                final List<Parameter> parameters = new ArrayList<>();
+                if (pathItem.getParameters() != null) {
+                    parameters.addAll(pathItem.getParameters());
+                }
+                if (operation.getParameters() != null) {
+                    parameters.addAll(operation.getParameters());
+                }
+                for (Parameter parameter : parameters) {
+                    final JsonNode node = tree(parameter);
+                    final JsonNode resolved = parameter.get$ref() == null ? node : resolve(components, parameter.get$ref());
+                    final String name = resolved.path("name").asText(null);
+                    if (name != null) {
+                        entry.params.put(resolved.path("in").asText() + " " + codegen.toParamName(name), node);
+                    }
+                    collectRefs(node, entry.refs);
+                }
+                collectRefs(entry.tree, entry.refs);
+                closeRefs(components, entry.refs);
+
+                operations.put(codegen.toOperationId(operation, path.getKey(), httpMethod), entry);
+            }
+        }
+        return operations;
+    }
+
+    private static void closeRefs(JsonNode components, Set<String> refs) {
+        final Deque<String> pending = new ArrayDeque<>(refs);
+        while (!pending.isEmpty()) {
+            final Set<String> nested = new TreeSet<>();
+            collectRefs(resolve(components, pending.pop()), nested);
+            for (String ref : nested) {
+                if (refs.add(ref)) {
+                    pending.push(ref);
+                }
+            }
+        }
+    }
+
+    private static JsonNode resolve(JsonNode components, String ref) {
+        if (!ref.startsWith(COMPONENTS_PREFIX)) {
+            return MissingNode.getInstance();
+        }
+        final String[] parts = ref.substring(COMPONENTS_PREFIX.length()).split("/", 2);
+        return parts.length < 2 ? MissingNode.getInstance() : components.path(parts[0]).path(parts[1]);
+    }
+
+    private static void collectRefs(JsonNode node, Set<String> refs) {
+        if (node.isObject()) {
+            final JsonNode ref = node.get("$ref");
+            if (ref != null && ref.isTextual() && ref.asText().startsWith(COMPONENTS_PREFIX)) {
+                refs.add(ref.asText());
+            }
+        }
+        for (Iterator<JsonNode> it = node.elements(); it.hasNext();) {
+            collectRefs(it.next(), refs);
+        }
+    }
+
+    private static JsonNode withoutParts(ObjectNode operation) {
+        return operation.deepCopy().without(OPERATION_PARTS);
+    }
+
+    private static JsonNode components(OpenAPI openAPI) {
+        return openAPI.getComponents() == null ? Json.mapper().createObjectNode() : tree(openAPI.getComponents());
+    }
+
+    private static JsonNode tree(Object value) {
+        return value == null ? MissingNode.getInstance() : Json.mapper().valueToTree(value);
+    }
+
+    private static class OperationEntry {
+        private final String method;
+        private final String path;
+        private final ObjectNode tree;
+        private final Set<String> tags = new TreeSet<>();
+        private final Map<String, JsonNode> params = new TreeMap<>();
+        private final Set<String> refs = new TreeSet<>();
+
+        private OperationEntry(String method, String path, ObjectNode tree) {
+            this.method = method;
+            this.path = path;
+            this.tree = tree;
+        }
+    }
+
+    /**
+     * Added, removed or changed operations, params and schemas, serialized as the change report.
+     */
+    public static class ChangeSet {
+        public static final String FILE_NAME = ".swagger-codegen/rails5-changes.json";
+
+        private boolean global;
+        private final List<OperationChange> operations = new ArrayList<>();
+        private final List<Change> schemas = new ArrayList<>();
+        private final Set<String> affectedTags = new TreeSet<>();
+        private final Map<String, String> removedTags = new TreeMap<>();
+
+        /**
+         * Whether the controller of a tag, by file name, needs to be regenerated.
+         */
+        public boolean affects(String tag) {
+            return global || affectedTags.contains(tag);
+        }
+
+        @JsonIgnore
+        public boolean isEmpty() {
+            return !global && operations.isEmpty() && schemas.isEmpty();
+        }
+
+        /**
+         * Info or servers changed, every controller is affected.
+         */
+        public boolean isGlobal() {
+            return global;
+        }
+
+        public List<OperationChange> getOperations() {
+            return operations;
+        }
+
+        public List<Change> getSchemas() {
+            return schemas;
+        }
+
+        /**
+         * Controller file names of every tag an added, removed or changed operation had or has.
+         */
+        public Set<String> getAffectedTags() {
+            return affectedTags;
+        }
+
+        /**
+         * Controller file names of tags without operations anymore, with the first path they had.
+         */
+        public Map<String, String> getRemovedTags() {
+            return removedTags;
+        }
+
+        public void write(File outputDir) throws IOException {
+            final File file = new File(outputDir, FILE_NAME);
+            file.getParentFile().mkdirs();
+            Json.pretty().writeValue(file, this);
+        }
+
+        public byte[] toBytes() throws IOException {
+            return Json.pretty().writeValueAsBytes(this);
+        }
+
+        @Override
+        public String toString() {
+            final Map<Kind, Integer> counts = new LinkedHashMap<>();
+            for (Kind kind : Kind.values()) {
+                counts.put(kind, 0);
+            }
+            for (OperationChange operation : operations) {
+                counts.merge(operation.getKind(), 1, Integer::sum);
+            }
+            return String.format("%d operations added, %d removed, %d changed, %d schemas changed, %d controllers affected%s",
+                    counts.get(Kind.ADDED), counts.get(Kind.REMOVED), counts.get(Kind.CHANGED), schemas.size(),
+                    affectedTags.size(), global ? ", info or servers changed" : "");
+        }
+    }
+
+    public static class Change {
+        private final Kind kind;
+        private final String name;
+
+        public Change(Kind kind, String name) {
+            this.kind = kind;
+            this.name = name;
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    public static class OperationChange extends Change {
+        private final String method;
+        private final String path;
+        private final Set<String> tags;
+        private final List<Change> params = new ArrayList<>();
+        private final Set<String> changes = new TreeSet<>();
+
+        private OperationChange(Kind kind, String operationId, OperationEntry entry) {
+            super(kind, operationId);
+            this.method = entry.method;
+            this.path = entry.path;
+            this.tags = entry.tags;
+        }
+
+        public String getMethod() {
+            return method;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        /**
+         * Controller file names, of the new spec unless removed.
+         */
+        public Set<String> getTags() {
+            return tags;
+        }
+
+        public List<Change> getParams() {
+            return params;
+        }
+
+        /**
+         * What else changed: {@code method}, {@code path}, {@code tags}, {@code requestBody},
+         * {@code responses}, {@code operation} for anything else on the operation itself, and
+         * the components it reaches, e.g. {@code schemas/Pet}.
+         */
+        public Set<String> getChanges() {
+            return changes;
+        }
+    }
+}
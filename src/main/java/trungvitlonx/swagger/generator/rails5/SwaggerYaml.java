@@ -0,0 +1,92 @@
+package trungvitlonx.swagger.generator.rails5;
+
+import io.swagger.v3.core.util.Yaml;
+import io.swagger.v3.oas.models.OpenAPI;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Lazy YAML rendering of an {@link OpenAPI} document.
+ *
+ * Put into the supporting file data in place of the serialized spec: the document is only
+ * turned into a String if a template actually prints it, and {@link #writeTo(File)} streams
+ * it to disk without ever holding it in memory.
+ */
+public class SwaggerYaml {
+    private static final ObjectMapper MAPPER = createMapper();
+
+    private final OpenAPI openAPI;
+
+    public SwaggerYaml(OpenAPI openAPI) {
+        this.openAPI = openAPI;
+    }
+
+    public void writeTo(OutputStream out) throws IOException {
+        try (JsonGenerator generator = MAPPER.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            MAPPER.writeValue(generator, openAPI);
+        }
+    }
+
+    /**
+     * Streams the document into {@code file}, leaving an existing file with the same content
+     * untouched.
+     *
+     * @return whether the file was written
+     */
+    public boolean writeTo(File file) throws IOException {
+        final Path target = file.toPath();
+        Files.createDirectories(target.toAbsolutePath().getParent());
+
+        final Path tmp = Files.createTempFile(target.toAbsolutePath().getParent(), file.getName(), ".tmp");
+        try {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tmp))) {
+                writeTo(out);
+            }
+
+            if (Rails5Generator.hasContent(target, tmp)) {
+                return false;
+            }
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+            return true;
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    @Override
+    public String toString() {
+        try {
+            return MAPPER.writeValueAsString(openAPI);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static ObjectMapper createMapper() {
+        SimpleModule module = new SimpleModule();
+        module.addSerializer(Double.class, new JsonSerializer<Double>() {
+            @Override
+            public void serialize(Double val, JsonGenerator jgen,
+                    SerializerProvider provider) throws IOException, JsonProcessingException {
+                jgen.writeNumber(new BigDecimal(val));
+            }
+        });
+        // a private copy, registering on Yaml.mapper() would change it for every user
+        return Yaml.mapper().copy().registerModule(module);
+    }
+}
@@ -0,0 +1,92 @@
+package trungvitlonx.swagger.batch;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.rules.TemporaryFolder;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import trungvitlonx.swagger.generator.rails5.GenerationMetrics;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class BatchGeneratorTest {
+    private final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test(description = "verify that every manifest entry is generated and failures are reported per spec")
+    public void testBatchRun() throws Exception {
+        this.folder.create();
+        final File first = this.folder.newFolder("first");
+        final File second = this.folder.newFolder("second");
+
+        final List<GenerationTask> tasks = Arrays.asList(
+                new GenerationTask("src/test/resources/petstore.yaml", first.getAbsolutePath()),
+                new GenerationTask("src/test/resources/petstore.yaml", second.getAbsolutePath()),
+                new GenerationTask("src/test/resources/missing.yaml", this.folder.newFolder("missing").getAbsolutePath()));
+
+        final List<GenerationResult> results = new BatchGenerator(2).run(tasks);
+
+        Assert.assertEquals(results.size(), 3);
+        Assert.assertTrue(results.get(0).isSuccess());
+        Assert.assertTrue(results.get(1).isSuccess());
+        Assert.assertFalse(results.get(2).isSuccess());
+        Assert.assertTrue(new File(first, "config/routes.rb").exists());
+        Assert.assertTrue(new File(second, "config/routes.rb").exists());
+
+        final GenerationMetrics metrics = results.get(0).getMetrics();
+        Assert.assertEquals(metrics.getPhase(GenerationMetrics.PARSE).getCount(), 1);
+        Assert.assertEquals(metrics.getPhase(GenerationMetrics.POST_PROCESS_OPERATIONS).getCount(), 1);
+        Assert.assertEquals(metrics.getPhase(GenerationMetrics.RENDER).getCount(), 2);
+        Assert.assertTrue(metrics.getPhase(GenerationMetrics.GENERATE).getWallNanos() > 0);
+        Assert.assertNotNull(results.get(2).getMetrics().getPhase(GenerationMetrics.PARSE));
+
+        final File report = new File(this.folder.getRoot(), "metrics.json");
+        BatchGenerator.writeMetricsReport(results, report);
+        Assert.assertTrue(report.length() > 0);
+
+        this.folder.delete();
+    }
+
+    @Test(description = "verify that parsed specs are cached until the spec or a file it refers to changes")
+    public void testSpecCache() throws Exception {
+        this.folder.create();
+        final File spec = new File(this.folder.getRoot(), "api.yaml");
+        final File pet = new File(this.folder.getRoot(), "pet.yaml");
+        final File output = this.folder.newFolder("out");
+        FileUtils.writeStringToFile(spec, "openapi: 3.0.1\n"
+                + "info: {title: Pets, version: '1'}\n"
+                + "paths:\n"
+                + "  /pets/{id}:\n"
+                + "    get:\n"
+                + "      tags: [pets]\n"
+                + "      operationId: showPet\n"
+                + "      parameters: [{name: id, in: path, required: true, schema: {type: integer}}]\n"
+                + "      responses:\n"
+                + "        '200':\n"
+                + "          description: a pet\n"
+                + "          content: {application/json: {schema: {$ref: './pet.yaml#/Pet'}}}\n", "UTF-8");
+        FileUtils.writeStringToFile(pet, "Pet: {type: object, properties: {name: {type: string}}}\n", "UTF-8");
+
+        final SpecCache cache = new SpecCache(this.folder.newFolder("cache"));
+        final BatchGenerator generator = new BatchGenerator(1);
+        generator.setSpecCache(cache);
+        final List<GenerationTask> tasks = Collections.singletonList(
+                new GenerationTask(spec.getAbsolutePath(), output.getAbsolutePath()));
+
+        Assert.assertTrue(generator.run(tasks).get(0).isSuccess());
+        final String controller = FileUtils.readFileToString(new File(output, "app/controllers/api/v1/pets_controller.rb"), "UTF-8");
+        Assert.assertTrue(generator.run(tasks).get(0).isSuccess());
+        Assert.assertEquals(cache.getMisses(), 1);
+        Assert.assertEquals(cache.getHits(), 1);
+        Assert.assertEquals(FileUtils.readFileToString(new File(output, "app/controllers/api/v1/pets_controller.rb"), "UTF-8"), controller);
+
+        FileUtils.writeStringToFile(pet, "Pet: {type: object, properties: {name: {type: string}, tag: {type: string}}}\n", "UTF-8");
+        Assert.assertTrue(generator.run(tasks).get(0).isSuccess());
+        Assert.assertEquals(cache.getMisses(), 2);
+        Assert.assertEquals(cache.getHits(), 1);
+
+        this.folder.delete();
+    }
+}
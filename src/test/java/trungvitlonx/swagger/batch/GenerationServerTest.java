@@ -0,0 +1,148 @@
+package trungvitlonx.swagger.batch;
+
+import io.swagger.codegen.v3.service.GenerationRequest;
+import io.swagger.codegen.v3.service.Options;
+import io.swagger.v3.core.util.Json;
+import io.swagger.v3.core.util.Yaml;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import trungvitlonx.swagger.generator.rails5.ArchiveSink;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+public class GenerationServerTest {
+    private static final String PETSTORE = "src/test/resources/petstore.yaml";
+
+    @Test(description = "verify that identical concurrent requests share one generation and later ones hit the cache")
+    public void testCoalescingAndCache() throws Exception {
+        try (GenerationServer server = start(GenerationServer.DEFAULT_CACHE_BYTES)) {
+            final HttpClient client = HttpClient.newHttpClient();
+            final String body = Json.mapper().writeValueAsString(request().specURL(new File(PETSTORE).getAbsolutePath()));
+
+            final int clients = 8;
+            final CountDownLatch ready = new CountDownLatch(clients);
+            final ExecutorService executor = Executors.newFixedThreadPool(clients);
+            final List<Future<HttpResponse<byte[]>>> responses = new ArrayList<>();
+            for (int i = 0; i < clients; i++) {
+                responses.add(executor.submit(() -> {
+                    ready.countDown();
+                    ready.await();
+                    return client.send(post(server, "", body), HttpResponse.BodyHandlers.ofByteArray());
+                }));
+            }
+            final byte[] first = responses.get(0).get().body();
+            for (Future<HttpResponse<byte[]>> response : responses) {
+                Assert.assertEquals(response.get().statusCode(), 200);
+                Assert.assertEquals(response.get().body(), first);
+            }
+            executor.shutdown();
+            Assert.assertTrue(entries(first).contains("config/routes.rb"));
+
+            final HttpResponse<byte[]> again = client.send(post(server, "", body), HttpResponse.BodyHandlers.ofByteArray());
+            Assert.assertEquals(again.headers().firstValue(GenerationServer.CACHE_HEADER).orElse(null), GenerationServer.HIT);
+
+            // an inline spec and another format are generated on their own
+            final JsonNode spec = Yaml.mapper().readTree(new File(PETSTORE));
+            final HttpResponse<byte[]> tar = client.send(post(server, "?format=tar",
+                    Json.mapper().writeValueAsString(request().spec(spec))), HttpResponse.BodyHandlers.ofByteArray());
+            Assert.assertEquals(tar.statusCode(), 200);
+            Assert.assertEquals(tar.headers().firstValue("Content-Type").orElse(null), "application/x-tar");
+            Assert.assertEquals(tar.headers().firstValue(GenerationServer.CACHE_HEADER).orElse(null), GenerationServer.MISS);
+            try (Stream<Path> files = Files.list(server.getWorkDirectory())) {
+                Assert.assertEquals(files.count(), 0L);
+            }
+
+            final HttpResponse<String> invalid = client.send(post(server, "",
+                    Json.mapper().writeValueAsString(request().lang("ruby").specURL(PETSTORE))), HttpResponse.BodyHandlers.ofString());
+            Assert.assertEquals(invalid.statusCode(), 400);
+
+            final JsonNode metrics = Json.mapper().readTree(client.send(HttpRequest.newBuilder(uri(server, GenerationServer.METRICS_PATH)).build(),
+                    HttpResponse.BodyHandlers.ofString()).body());
+            Assert.assertEquals(metrics.path("requests").asLong(), clients + 3);
+            Assert.assertEquals(metrics.path("errors").asLong(), 1);
+            Assert.assertEquals(metrics.path("cache").path("misses").asLong(), 2);
+            Assert.assertEquals(metrics.path("cache").path("hits").asLong() + metrics.path("cache").path("coalesced").asLong(), clients);
+            Assert.assertEquals(metrics.path("cache").path("entries").asInt(), 2);
+            Assert.assertTrue(metrics.path("latency").path("p99Millis").asDouble() > 0);
+            Assert.assertEquals(metrics.path("generation").path("generate").path("total").path("count").asInt(), 2);
+        }
+    }
+
+    @Test(description = "verify that the cache keeps the least recently used archives within its size")
+    public void testCacheSizeBound() throws Exception {
+        final GenerationRequest petstore = request().specURL(PETSTORE);
+        final GenerationRequest serializers = request().specURL(PETSTORE)
+                .options(new Options().additionalProperties(Collections.singletonMap("serializers", true)));
+
+        try (GenerationServer server = start(1L)) {
+            server.generate(petstore, ArchiveSink.Format.ZIP);
+            Assert.assertEquals(server.generate(petstore, ArchiveSink.Format.ZIP).getSource(), GenerationServer.MISS);
+        }
+
+        // room for the larger archive only, caching it evicts the other one
+        final long size;
+        try (GenerationServer server = start(GenerationServer.DEFAULT_CACHE_BYTES)) {
+            size = server.generate(serializers, ArchiveSink.Format.ZIP).getArchive().length;
+            Assert.assertTrue(size > server.generate(petstore, ArchiveSink.Format.ZIP).getArchive().length);
+        }
+        try (GenerationServer server = start(size)) {
+            server.generate(petstore, ArchiveSink.Format.ZIP);
+            Assert.assertEquals(server.generate(petstore, ArchiveSink.Format.ZIP).getSource(), GenerationServer.HIT);
+            Assert.assertEquals(server.generate(serializers, ArchiveSink.Format.ZIP).getSource(), GenerationServer.MISS);
+            Assert.assertEquals(server.generate(serializers, ArchiveSink.Format.ZIP).getSource(), GenerationServer.HIT);
+            Assert.assertEquals(server.generate(petstore, ArchiveSink.Format.ZIP).getSource(), GenerationServer.MISS);
+        }
+    }
+
+    private static GenerationServer start(long cacheBytes) throws Exception {
+        final GenerationServer server = new GenerationServer(new BatchGenerator(1), cacheBytes);
+        server.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        return server;
+    }
+
+    private static GenerationRequest request() {
+        return new GenerationRequest().lang(BatchGenerator.LANG);
+    }
+
+    private static HttpRequest post(GenerationServer server, String query, String body) {
+        return HttpRequest.newBuilder(uri(server, GenerationServer.GENERATE_PATH + query))
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private static URI uri(GenerationServer server, String path) {
+        return URI.create("http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + path);
+    }
+
+    private static List<String> entries(byte[] zip) throws Exception {
+        final List<String> names = new ArrayList<>();
+        try (ZipInputStream in = new ZipInputStream(new ByteArrayInputStream(zip))) {
+            for (ZipEntry entry; (entry = in.getNextEntry()) != null; ) {
+                names.add(entry.getName());
+            }
+        }
+        return names;
+    }
+}
@@ -0,0 +1,62 @@
+package trungvitlonx.swagger.batch;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.rules.TemporaryFolder;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import trungvitlonx.swagger.generator.rails5.Rails5Codegen;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.util.Collections;
+import java.util.List;
+
+public class SpecWatcherTest {
+    private final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test(description = "verify that editing a spec regenerates its output while output changes are ignored")
+    public void testRegeneratesOnSpecChange() throws Exception {
+        this.folder.create();
+        final File spec = new File(this.folder.getRoot(), "petstore.yaml");
+        FileUtils.copyFile(new File("src/test/resources/petstore.yaml"), spec);
+        final File output = new File(this.folder.getRoot(), "out");
+        final File controller = new File(output, "app/controllers/api/v1/pets_controller.rb");
+
+        final GenerationTask task = new GenerationTask(spec.getAbsolutePath(), output.getAbsolutePath());
+        task.getOptions().put(Rails5Codegen.INCREMENTAL, Boolean.TRUE);
+        final List<GenerationTask> tasks = Collections.singletonList(task);
+        final BatchGenerator generator = new BatchGenerator(1);
+        Assert.assertTrue(generator.run(tasks).get(0).isSuccess());
+
+        final SpecWatcher watcher = new SpecWatcher(generator, tasks, 50L, new PrintStream(new ByteArrayOutputStream()));
+        Assert.assertTrue(watcher.affectedTasks(Collections.singleton(spec.toPath())).contains(task));
+        Assert.assertTrue(watcher.affectedTasks(Collections.singleton(output.toPath())).isEmpty());
+
+        final Thread thread = new Thread(() -> {
+            try {
+                watcher.run();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        thread.start();
+
+        FileUtils.writeStringToFile(spec, FileUtils.readFileToString(spec, "UTF-8")
+                .replace("operationId: findPetsByTags", "operationId: findPetsByLabels"), "UTF-8");
+
+        final long deadline = System.currentTimeMillis() + 30_000L;
+        while (!FileUtils.readFileToString(controller, "UTF-8").contains("def find_pets_by_labels")
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50L);
+        }
+
+        watcher.close();
+        thread.join(5_000L);
+        Assert.assertFalse(thread.isAlive());
+        Assert.assertTrue(FileUtils.readFileToString(controller, "UTF-8").contains("def find_pets_by_labels"));
+
+        this.folder.delete();
+    }
+}
@@ -1,6 +1,8 @@
 package trungvitlonx.swagger.generator;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import io.swagger.codegen.v3.ClientOptInput;
+import io.swagger.codegen.v3.config.CodegenConfigurator;
 import io.swagger.codegen.v3.service.GenerationRequest;
 import io.swagger.codegen.v3.service.GeneratorService;
 import io.swagger.codegen.v3.service.Options;
@@ -8,11 +10,15 @@ import io.swagger.util.Json;
 import io.swagger.util.Yaml;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
+import trungvitlonx.swagger.generator.rails5.MemorySink;
+import trungvitlonx.swagger.generator.rails5.Rails5Codegen;
+import trungvitlonx.swagger.generator.rails5.Rails5Generator;
 
 import java.io.File;
 import java.io.InputStream;
 import java.nio.file.Files;
 import java.util.List;
+import java.util.Map;
 
 /**
  *
@@ -53,6 +59,24 @@ public abstract class GeneratorRunner {
         return files;
     }
 
+    /**
+     * Runs the rails5 generator into a {@link MemorySink}, nothing is written to disk. The output
+     * folder only names the files and is never created.
+     */
+    public static MemorySink runInMemory(String specPath, Map<String, Object> properties) {
+        final CodegenConfigurator configurator = new CodegenConfigurator()
+            .setLang("rails5")
+            .setInputSpecURL(specPath)
+            .setOutputDir(new File(System.getProperty("java.io.tmpdir"), "codegentest-in-memory").getAbsolutePath());
+        properties.forEach(configurator::addAdditionalProperty);
+
+        final ClientOptInput input = configurator.toClientOptInput();
+        final MemorySink sink = new MemorySink();
+        ((Rails5Codegen) input.getConfig()).setOutputSink(sink);
+        new Rails5Generator().opts(input).generate();
+        return sink;
+    }
+
     public static File getOutFolder(String path, boolean delete) {
         try {
             File outputFolder = new File(path);
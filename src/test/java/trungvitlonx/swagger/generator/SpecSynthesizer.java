@@ -0,0 +1,287 @@
+package trungvitlonx.swagger.generator;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import io.swagger.v3.core.util.Json;
+import io.swagger.v3.core.util.Yaml;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.SplittableRandom;
+
+/**
+ *
+ * writes deterministic, arbitrarily large OpenAPI 3 documents for load and scaling tests
+ *
+ * Every path gets an item resource {@code /<tag>/resources<n>/{id}} with a GET that takes query params
+ * and a PUT whose body references a chain of {@code nestingDepth} object schemas. Everything is derived
+ * from the seed and the path index, so paths and their schemas are streamed in two passes without
+ * keeping any of the document in memory.
+ *
+ */
+public class SpecSynthesizer {
+    private static final String[] PARAM_TYPES = {"integer", "string", "enum", "boolean", "array"};
+
+    private long seed = 42L;
+    private int paths = 100;
+    private int tags = 10;
+    private int paramsPerOperation = 5;
+    private int nestingDepth = 3;
+    private int enumSize = 8;
+
+    public SpecSynthesizer seed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    public SpecSynthesizer paths(int paths) {
+        this.paths = paths;
+        return this;
+    }
+
+    public SpecSynthesizer tags(int tags) {
+        this.tags = tags;
+        return this;
+    }
+
+    public SpecSynthesizer paramsPerOperation(int paramsPerOperation) {
+        this.paramsPerOperation = paramsPerOperation;
+        return this;
+    }
+
+    public SpecSynthesizer nestingDepth(int nestingDepth) {
+        this.nestingDepth = nestingDepth;
+        return this;
+    }
+
+    public SpecSynthesizer enumSize(int enumSize) {
+        this.enumSize = enumSize;
+        return this;
+    }
+
+    /**
+     * Writes the document to a temp file, as JSON if {@code suffix} is ".json" and as YAML otherwise.
+     */
+    public File writeTempFile(String suffix) throws IOException {
+        final File file = Files.createTempFile("synthetic-spec-", suffix).toFile();
+        file.deleteOnExit();
+        writeTo(file);
+        return file;
+    }
+
+    public void writeTo(File file) throws IOException {
+        final JsonFactory factory = file.getName().endsWith(".json")
+                ? Json.mapper().getFactory()
+                : Yaml.mapper().getFactory();
+        try (OutputStream out = Files.newOutputStream(file.toPath())) {
+            writeTo(factory, out);
+        }
+    }
+
+    public void writeTo(JsonFactory factory, OutputStream out) throws IOException {
+        try (JsonGenerator json = factory.createGenerator(out)) {
+            json.writeStartObject();
+            json.writeStringField("openapi", "3.0.1");
+            json.writeObjectFieldStart("info");
+            json.writeStringField("title", "Synthetic API");
+            json.writeStringField("version", "1.0.0");
+            json.writeEndObject();
+            json.writeArrayFieldStart("servers");
+            json.writeStartObject();
+            json.writeStringField("url", "http://localhost:3000/api/v1");
+            json.writeEndObject();
+            json.writeEndArray();
+
+            json.writeObjectFieldStart("paths");
+            for (int i = 0; i < paths; i++) {
+                writePath(json, i);
+            }
+            json.writeEndObject();
+
+            json.writeObjectFieldStart("components");
+            json.writeObjectFieldStart("schemas");
+            for (int i = 0; i < paths; i++) {
+                writeSchemas(json, i);
+            }
+            json.writeEndObject();
+            json.writeEndObject();
+
+            json.writeEndObject();
+        }
+    }
+
+    private SplittableRandom random(int path) {
+        return new SplittableRandom(seed * 31 + path);
+    }
+
+    private String tag(int path) {
+        return "tag" + (path % Math.max(1, tags));
+    }
+
+    private static String resource(int path) {
+        return "resources" + path;
+    }
+
+    private static String schemaName(int path, int level) {
+        return level == 0 ? "Resource" + path : "Resource" + path + "Level" + level;
+    }
+
+    private void writePath(JsonGenerator json, int path) throws IOException {
+        final SplittableRandom random = random(path);
+
+        json.writeObjectFieldStart("/" + tag(path) + "/" + resource(path) + "/{id}");
+
+        json.writeObjectFieldStart("get");
+        writeOperationHeader(json, path, "get");
+        json.writeArrayFieldStart("parameters");
+        writeIdParam(json);
+        for (int i = 0; i < paramsPerOperation; i++) {
+            writeQueryParam(json, random, "param" + i);
+        }
+        json.writeEndArray();
+        writeResponses(json, path);
+        json.writeEndObject();
+
+        json.writeObjectFieldStart("put");
+        writeOperationHeader(json, path, "update");
+        json.writeArrayFieldStart("parameters");
+        writeIdParam(json);
+        json.writeEndArray();
+        json.writeObjectFieldStart("requestBody");
+        json.writeBooleanField("required", true);
+        json.writeObjectFieldStart("content");
+        json.writeObjectFieldStart("application/json");
+        writeRef(json, schemaName(path, 0));
+        json.writeEndObject();
+        json.writeEndObject();
+        json.writeEndObject();
+        writeResponses(json, path);
+        json.writeEndObject();
+
+        json.writeEndObject();
+    }
+
+    private void writeOperationHeader(JsonGenerator json, int path, String verb) throws IOException {
+        json.writeArrayFieldStart("tags");
+        json.writeString(tag(path));
+        json.writeEndArray();
+        json.writeStringField("operationId", verb + "Resource" + path);
+    }
+
+    private static void writeIdParam(JsonGenerator json) throws IOException {
+        json.writeStartObject();
+        json.writeStringField("name", "id");
+        json.writeStringField("in", "path");
+        json.writeBooleanField("required", true);
+        json.writeObjectFieldStart("schema");
+        json.writeStringField("type", "integer");
+        json.writeStringField("format", "int64");
+        json.writeEndObject();
+        json.writeEndObject();
+    }
+
+    private void writeQueryParam(JsonGenerator json, SplittableRandom random, String name) throws IOException {
+        json.writeStartObject();
+        json.writeStringField("name", name);
+        json.writeStringField("in", "query");
+        json.writeBooleanField("required", random.nextBoolean());
+        json.writeFieldName("schema");
+        writeSimpleSchema(json, random);
+        json.writeEndObject();
+    }
+
+    private void writeSimpleSchema(JsonGenerator json, SplittableRandom random) throws IOException {
+        json.writeStartObject();
+        switch (PARAM_TYPES[random.nextInt(PARAM_TYPES.length)]) {
+            case "integer":
+                final int minimum = random.nextInt(100);
+                json.writeStringField("type", "integer");
+                json.writeNumberField("minimum", minimum);
+                json.writeNumberField("maximum", minimum + 1 + random.nextInt(1000));
+                break;
+            case "string":
+                json.writeStringField("type", "string");
+                json.writeNumberField("minLength", 1 + random.nextInt(4));
+                json.writeNumberField("maxLength", 16 + random.nextInt(240));
+                break;
+            case "enum":
+                json.writeStringField("type", "string");
+                writeEnum(json, random);
+                break;
+            case "boolean":
+                json.writeStringField("type", "boolean");
+                break;
+            default:
+                json.writeStringField("type", "array");
+                json.writeObjectFieldStart("items");
+                json.writeStringField("type", "string");
+                writeEnum(json, random);
+                json.writeEndObject();
+                break;
+        }
+        json.writeEndObject();
+    }
+
+    private void writeEnum(JsonGenerator json, SplittableRandom random) throws IOException {
+        final int offset = random.nextInt(1000);
+        json.writeArrayFieldStart("enum");
+        for (int i = 0; i < enumSize; i++) {
+            json.writeString("value" + (offset + i));
+        }
+        json.writeEndArray();
+    }
+
+    private static void writeResponses(JsonGenerator json, int path) throws IOException {
+        json.writeObjectFieldStart("responses");
+        json.writeObjectFieldStart("200");
+        json.writeStringField("description", "successful operation");
+        json.writeObjectFieldStart("content");
+        json.writeObjectFieldStart("application/json");
+        writeRef(json, schemaName(path, 0));
+        json.writeEndObject();
+        json.writeEndObject();
+        json.writeEndObject();
+        json.writeObjectFieldStart("404");
+        json.writeStringField("description", "Resource not found");
+        json.writeEndObject();
+        json.writeEndObject();
+    }
+
+    private static void writeRef(JsonGenerator json, String schema) throws IOException {
+        writeRef(json, "schema", schema);
+    }
+
+    /**
+     * Writes the body schema of a path and the chain of object schemas nested below it.
+     */
+    private void writeSchemas(JsonGenerator json, int path) throws IOException {
+        // not the stream of the paths pass, so that the schemas don't repeat the query params
+        final SplittableRandom random = random(path).split();
+
+        for (int level = 0; level <= nestingDepth; level++) {
+            json.writeObjectFieldStart(schemaName(path, level));
+            json.writeStringField("type", "object");
+            json.writeArrayFieldStart("required");
+            json.writeString("field0");
+            json.writeEndArray();
+            json.writeObjectFieldStart("properties");
+            for (int i = 0; i < paramsPerOperation; i++) {
+                json.writeFieldName("field" + i);
+                writeSimpleSchema(json, random);
+            }
+            if (level < nestingDepth) {
+                writeRef(json, "child", schemaName(path, level + 1));
+            }
+            json.writeEndObject();
+            json.writeEndObject();
+        }
+    }
+
+    private static void writeRef(JsonGenerator json, String field, String schema) throws IOException {
+        json.writeObjectFieldStart(field);
+        json.writeStringField("$ref", "#/components/schemas/" + schema);
+        json.writeEndObject();
+    }
+}
@@ -29,7 +29,7 @@ public class Rails5CodegenTest extends AbstractCodegenTest {
         final ClientOptInput clientOptInput = configurator.toClientOptInput();
         new DefaultGenerator().opts(clientOptInput).generate();
 
-        final File petControllerFile = new File(output, "/app/controllers/pets_controller.rb");
+        final File petControllerFile = new File(output, "/app/controllers/api/v1/pets_controller.rb");
         final String petControllerContent = FileUtils.readFileToString(petControllerFile, StandardCharsets.UTF_8);
 
         Assert.assertTrue(petControllerContent.contains("def create"));
@@ -41,4 +41,118 @@ public class Rails5CodegenTest extends AbstractCodegenTest {
 
         this.folder.delete();
     }
+
+    @Test(description = "verify that an incremental run leaves files with unchanged inputs untouched")
+    public void testIncrementalSkipsUnchangedFiles() throws Exception {
+        this.folder.create();
+        final File output = this.folder.newFolder("out");
+        final File spec = new File(this.folder.getRoot(), "petstore.yaml");
+        FileUtils.copyFile(new File("src/test/resources/petstore.yaml"), spec);
+        final File templateDir = this.folder.newFolder("templates");
+        final File header = new File(templateDir, "_header.mustache");
+        FileUtils.copyFile(new File("src/main/resources/handlebars/rails5/_header.mustache"), header);
+
+        generateIncrementally(spec, output, templateDir);
+
+        final File petControllerFile = new File(output, "/app/controllers/api/v1/pets_controller.rb");
+        final File routesFile = new File(output, "/config/routes.rb");
+        Assert.assertTrue(new File(output, GenerationManifest.FILE_NAME).exists());
+        Assert.assertTrue(petControllerFile.setLastModified(1000L));
+        Assert.assertTrue(routesFile.setLastModified(1000L));
+
+        generateIncrementally(spec, output, templateDir);
+
+        Assert.assertEquals(petControllerFile.lastModified(), 1000L);
+        Assert.assertEquals(routesFile.lastModified(), 1000L);
+
+        // an edited operation re-renders its controller and the routes
+        FileUtils.write(spec, FileUtils.readFileToString(spec, StandardCharsets.UTF_8)
+                .replace("operationId: findPetsByStatus", "operationId: listPetsByStatus"), StandardCharsets.UTF_8);
+        generateIncrementally(spec, output, templateDir);
+
+        Assert.assertNotEquals(petControllerFile.lastModified(), 1000L);
+        Assert.assertNotEquals(routesFile.lastModified(), 1000L);
+        Assert.assertTrue(FileUtils.readFileToString(petControllerFile, StandardCharsets.UTF_8).contains("def list_pets_by_status"));
+        Assert.assertTrue(FileUtils.readFileToString(routesFile, StandardCharsets.UTF_8).contains("list_pets_by_status"));
+
+        // an edited template re-renders everything
+        Assert.assertTrue(petControllerFile.setLastModified(1000L));
+        Assert.assertTrue(routesFile.setLastModified(1000L));
+        FileUtils.write(header, "\n", StandardCharsets.UTF_8, true);
+        generateIncrementally(spec, output, templateDir);
+
+        Assert.assertNotEquals(petControllerFile.lastModified(), 1000L);
+        Assert.assertNotEquals(routesFile.lastModified(), 1000L);
+
+        this.folder.delete();
+    }
+
+    @Test(description = "verify that nested body schemas are validated with nested param! blocks")
+    public void testNestedBodyParams() throws Exception {
+        this.folder.create();
+        final File output = this.folder.getRoot();
+
+        final CodegenConfigurator configurator = new CodegenConfigurator()
+            .setLang("rails5")
+            .setInputSpecURL("src/test/resources/nested_body.yaml")
+            .setOutputDir(output.getAbsolutePath());
+
+        final ClientOptInput clientOptInput = configurator.toClientOptInput();
+        new DefaultGenerator().opts(clientOptInput).generate();
+
+        final File orderControllerFile = new File(output, "/app/controllers/api/v1/orders_controller.rb");
+        final String orderControllerContent = FileUtils.readFileToString(orderControllerFile, StandardCharsets.UTF_8);
+
+        Assert.assertTrue(orderControllerContent.contains("    param! :customer, Hash, required: true do |customer|\n"
+            + "      customer.param! :name, String, required: true\n"));
+        // a schema referring to itself is only checked to be a Hash
+        Assert.assertTrue(orderControllerContent.contains("      customer.param! :referrer, Hash, required: false\n    end\n"));
+        Assert.assertTrue(orderControllerContent.contains("      shipping.param! :street, String, required: false, max_length: 80\n"));
+        Assert.assertTrue(orderControllerContent.contains("    param! :status, String, required: false, in: [\"open\", \"closed\"]\n"));
+
+        // nested fields are rendered by the same partials, so a custom template applies to them too
+        final File templateDir = this.folder.newFolder("templates");
+        FileUtils.writeStringToFile(new File(templateDir, "_param_options.mustache"),
+            "{{#if maxLength}}, max_length: {{maxLength}}, blank: false{{/if}}", StandardCharsets.UTF_8);
+        new DefaultGenerator().opts(configurator.setTemplateDir(templateDir.getAbsolutePath()).toClientOptInput()).generate();
+
+        final String customContent = FileUtils.readFileToString(orderControllerFile, StandardCharsets.UTF_8);
+        Assert.assertTrue(customContent.contains("      shipping.param! :street, String, required: false, max_length: 80, blank: false\n"));
+
+        this.folder.delete();
+    }
+
+    @Test(description = "verify that the spec is streamed into the configured YAML file")
+    public void testSwaggerYamlFile() throws Exception {
+        this.folder.create();
+        final File output = this.folder.getRoot();
+
+        final CodegenConfigurator configurator = new CodegenConfigurator()
+            .setLang("rails5")
+            .setInputSpecURL("src/test/resources/petstore.yaml")
+            .setOutputDir(output.getAbsolutePath())
+            .addAdditionalProperty(Rails5Codegen.SWAGGER_YAML_FILE, "config/swagger.yaml");
+
+        final ClientOptInput clientOptInput = configurator.toClientOptInput();
+        new DefaultGenerator().opts(clientOptInput).generate();
+
+        final String swaggerYaml = FileUtils.readFileToString(new File(output, "config/swagger.yaml"), StandardCharsets.UTF_8);
+        Assert.assertTrue(swaggerYaml.startsWith("openapi: 3.0.1\n"));
+        Assert.assertTrue(swaggerYaml.contains("operationId: findPetsByStatus"));
+
+        this.folder.delete();
+    }
+
+    private void generateIncrementally(File spec, File output, File templateDir) throws Exception {
+        final CodegenConfigurator configurator = new CodegenConfigurator()
+            .setLang("rails5")
+            .setInputSpecURL(spec.getAbsolutePath())
+            .setOutputDir(output.getAbsolutePath())
+            .setTemplateDir(templateDir.getAbsolutePath())
+            .addAdditionalProperty(Rails5Codegen.INCREMENTAL, true);
+
+        final ClientOptInput clientOptInput = configurator.toClientOptInput();
+        new DefaultGenerator().opts(clientOptInput).generate();
+        ((Rails5Codegen) clientOptInput.getConfig()).writeManifest();
+    }
 }
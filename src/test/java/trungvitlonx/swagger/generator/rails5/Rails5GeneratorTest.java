@@ -0,0 +1,554 @@
+package trungvitlonx.swagger.generator.rails5;
+
+import io.swagger.codegen.v3.ClientOptInput;
+import io.swagger.codegen.v3.config.CodegenConfigurator;
+import io.swagger.v3.core.util.Json;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.github.jknack.handlebars.Template;
+
+import org.junit.rules.TemporaryFolder;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import trungvitlonx.swagger.generator.GeneratorRunner;
+import trungvitlonx.swagger.generator.SpecSynthesizer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+public class Rails5GeneratorTest {
+    private final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test(description = "verify that files with identical rendered content are not rewritten")
+    public void testUnchangedFilesAreSkipped() throws Exception {
+        this.folder.create();
+        final File output = this.folder.getRoot();
+
+        final Rails5Generator first = generate(output);
+        Assert.assertTrue(first.getWritten() > 0);
+        Assert.assertEquals(first.getSkipped(), 0);
+
+        final File routesFile = new File(output, "/config/routes.rb");
+        Assert.assertTrue(routesFile.setLastModified(1000L));
+
+        final Rails5Generator second = generate(output);
+        Assert.assertEquals(second.getWritten(), 0);
+        Assert.assertTrue(second.getSkipped() > 0);
+        Assert.assertEquals(routesFile.lastModified(), 1000L);
+
+        this.folder.delete();
+    }
+
+    @Test(description = "verify that a large synthetic spec generates one controller per tag")
+    public void testSyntheticSpec() throws Exception {
+        final SpecSynthesizer synthesizer = new SpecSynthesizer().seed(7L).paths(200).tags(8);
+        final File spec = synthesizer.writeTempFile(".yaml");
+        Assert.assertTrue(FileUtils.contentEquals(spec, synthesizer.writeTempFile(".yaml")));
+
+        this.folder.create();
+        final File output = this.folder.getRoot();
+        generate(spec.getAbsolutePath(), output);
+
+        final File[] controllers = new File(output, "/app/controllers/api/v1").listFiles();
+        Assert.assertNotNull(controllers);
+        Assert.assertEquals(controllers.length, 8);
+
+        final String routes = FileUtils.readFileToString(new File(output, "/config/routes.rb"), "UTF-8");
+        Assert.assertTrue(routes.contains("/tag7/resources199/{id}', controller_name: 'tag7'"));
+
+        this.folder.delete();
+    }
+
+    @Test(description = "verify that compiled templates are reused across runs until a template changes")
+    public void testCompiledTemplatesAreCached() throws Exception {
+        this.folder.create();
+        final File templates = this.folder.newFolder("templates");
+        FileUtils.copyDirectory(new File("src/main/resources/handlebars/rails5"), templates);
+        final File controllerFile = new File(this.folder.getRoot(), "/out/app/controllers/api/v1/pets_controller.rb");
+
+        final String controllerTemplate = new File(templates, "controller.mustache").getPath();
+
+        generate("src/test/resources/petstore.yaml", new File(this.folder.getRoot(), "out"), templates);
+        final int cached = CachedTemplateEngine.size();
+        final Template compiled = CachedTemplateEngine.compiled(controllerTemplate);
+        Assert.assertNotNull(compiled);
+        final String controller = FileUtils.readFileToString(controllerFile, "UTF-8");
+
+        generate("src/test/resources/petstore.yaml", new File(this.folder.getRoot(), "out"), templates);
+        Assert.assertEquals(CachedTemplateEngine.size(), cached);
+        Assert.assertSame(CachedTemplateEngine.compiled(controllerTemplate), compiled);
+
+        // other options render other templates of the same dir, they share the compiled ones
+        final Map<String, Object> options = new HashMap<>();
+        options.put(Rails5Codegen.SERIALIZERS, true);
+        options.put(Rails5Codegen.PAGINATION, true);
+        options.put(Rails5Codegen.BODY_SCHEMAS, true);
+        options.put(Rails5Codegen.VALIDATION_STYLE, Rails5Codegen.VALIDATION_STYLE_SCHEMA);
+        generate("src/test/resources/petstore.yaml", new File(this.folder.getRoot(), "options"), templates, options);
+        Assert.assertSame(CachedTemplateEngine.compiled(controllerTemplate), compiled);
+        generate("src/test/resources/petstore.yaml", new File(this.folder.getRoot(), "out"), templates);
+        Assert.assertSame(CachedTemplateEngine.compiled(controllerTemplate), compiled);
+        Assert.assertEquals(CachedTemplateEngine.size(), cached);
+
+        final File partial = new File(templates, "_header.mustache");
+        FileUtils.writeStringToFile(partial, "# edited\n" + FileUtils.readFileToString(partial, "UTF-8"), "UTF-8");
+        generate("src/test/resources/petstore.yaml", new File(this.folder.getRoot(), "out"), templates);
+        Assert.assertEquals(CachedTemplateEngine.size(), cached);
+        Assert.assertNotSame(CachedTemplateEngine.compiled(controllerTemplate), compiled);
+        Assert.assertEquals(FileUtils.readFileToString(controllerFile, "UTF-8"), "# edited\n" + controller);
+
+        this.folder.delete();
+    }
+
+    @Test(description = "verify that parallel rendering writes the same files as sequential rendering")
+    public void testParallelOutputMatchesSequential() throws Exception {
+        final File spec = new SpecSynthesizer().seed(11L).paths(120).tags(12).nestingDepth(3).writeTempFile(".yaml");
+
+        this.folder.create();
+        assertParallelOutputMatchesSequential(spec, "plain", Collections.emptyMap());
+
+        // streamed routes release each group once written, the body schemas are a second file per group
+        final Map<String, Object> options = new HashMap<>();
+        options.put(Rails5Codegen.STREAM_ROUTES, true);
+        options.put(Rails5Codegen.BODY_SCHEMAS, true);
+        assertParallelOutputMatchesSequential(spec, "streamed", options);
+
+        this.folder.delete();
+    }
+
+    @Test(description = "verify that the swagger YAML file is counted, tracked in the manifest and fails the run if unwritable")
+    public void testSwaggerYamlFile() throws Exception {
+        this.folder.create();
+        final File output = this.folder.newFolder("out");
+        final Map<String, Object> options = new HashMap<>();
+        options.put(Rails5Codegen.INCREMENTAL, true);
+        options.put(Rails5Codegen.SWAGGER_YAML_FILE, "config/swagger.yaml");
+
+        final int withoutYaml = generate("src/test/resources/petstore.yaml", this.folder.newFolder("plain")).getWritten();
+        Assert.assertEquals(generate("src/test/resources/petstore.yaml", output, null, options).getWritten(), withoutYaml + 1);
+        Assert.assertTrue(FileUtils.readFileToString(new File(output, GenerationManifest.FILE_NAME), "UTF-8").contains("config/swagger.yaml"));
+
+        final Rails5Generator again = generate("src/test/resources/petstore.yaml", output, null, options);
+        Assert.assertEquals(again.getWritten(), 0);
+
+        // the file of the previous name is stale
+        options.put(Rails5Codegen.SWAGGER_YAML_FILE, "config/openapi.yaml");
+        final Rails5Generator renamed = generate("src/test/resources/petstore.yaml", output, null, options);
+        Assert.assertEquals(renamed.getWritten(), 1);
+        Assert.assertEquals(renamed.getDeleted(), 1);
+        Assert.assertFalse(new File(output, "config/swagger.yaml").exists());
+        Assert.assertTrue(new File(output, "config/openapi.yaml").isFile());
+
+        options.put(Rails5Codegen.SWAGGER_YAML_FILE, ".swagger-codegen/VERSION/swagger.yaml");
+        Assert.assertThrows(RuntimeException.class, () -> generate("src/test/resources/petstore.yaml", output, null, options));
+
+        this.folder.delete();
+    }
+
+    @Test(description = "verify that streamed routes match the routes rendered at once")
+    public void testStreamedRoutes() throws Exception {
+        final File spec = new SpecSynthesizer().seed(5L).paths(60).tags(6).nestingDepth(2).writeTempFile(".yaml");
+
+        this.folder.create();
+        final File rendered = this.folder.newFolder("rendered");
+        final File streamed = this.folder.newFolder("streamed");
+        generate(spec.getAbsolutePath(), rendered);
+        final Rails5Generator generator = generate(spec.getAbsolutePath(), streamed, null,
+                Collections.singletonMap(Rails5Codegen.STREAM_ROUTES, true));
+
+        Assert.assertEquals(generator.getWritten(), FileUtils.listFiles(rendered, null, true).size());
+        Assert.assertTrue(FileUtils.contentEquals(new File(rendered, "config/routes.rb"), new File(streamed, "config/routes.rb")));
+        Assert.assertEquals(FileUtils.listFiles(new File(streamed, "config"), null, false).size(), 1);
+
+        // unchanged routes are left untouched
+        final Rails5Generator again = generate(spec.getAbsolutePath(), streamed, null,
+                Collections.singletonMap(Rails5Codegen.STREAM_ROUTES, true));
+        Assert.assertEquals(again.getWritten(), 0);
+
+        this.folder.delete();
+    }
+
+    @Test(description = "verify that sharded output draws every shard from its own route files")
+    public void testShardedOutput() throws Exception {
+        final File spec = new SpecSynthesizer().seed(5L).paths(60).tags(6).writeTempFile(".yaml");
+        final Map<String, Object> options = new HashMap<>();
+        options.put(Rails5Codegen.SHARD_BY, Rails5Codegen.SHARD_BY_PATH);
+        options.put(Rails5Codegen.INCREMENTAL, true);
+
+        this.folder.create();
+        final File output = this.folder.getRoot();
+        generate(spec.getAbsolutePath(), output, null, options);
+
+        final String controller = FileUtils.readFileToString(new File(output, "/app/controllers/api/v1/tag2/tag2_controller.rb"), "UTF-8");
+        Assert.assertTrue(controller.contains("class Tag2::Tag2Controller < ApplicationController\n"));
+        final String shardRoutes = FileUtils.readFileToString(new File(output, "/config/routes/tag2/tag2.rb"), "UTF-8");
+        Assert.assertTrue(shardRoutes.contains("scope module: 'tag2' do\n  add_swagger_route("));
+        Assert.assertTrue(shardRoutes.contains("add_swagger_route('get', '/api/v1/tag2/resources2/{id}', controller_name: 'tag2'"));
+        final String routes = FileUtils.readFileToString(new File(output, "/config/routes.rb"), "UTF-8");
+        Assert.assertTrue(routes.contains("%w[tag0 tag1 tag2 tag3 tag4 tag5]"));
+        Assert.assertFalse(routes.contains("add_swagger_route('get'"));
+
+        // regenerating one shard leaves the files of the others untouched
+        final File other = new File(output, "/config/routes/tag0/tag0.rb");
+        Assert.assertTrue(other.setLastModified(0L));
+        FileUtils.write(spec, FileUtils.readFileToString(spec, "UTF-8")
+                .replace("/tag2/resources2/{id}:", "/tag2/resources2/{id}/moved:"), "UTF-8");
+        final Rails5Generator again = generate(spec.getAbsolutePath(), output, null, options);
+        Assert.assertEquals(again.getWritten(), 1);
+        Assert.assertEquals(other.lastModified(), 0L);
+        Assert.assertTrue(FileUtils.readFileToString(new File(output, "/config/routes/tag2/tag2.rb"), "UTF-8")
+                .contains("/tag2/resources2/{id}/moved'"));
+
+        this.folder.delete();
+    }
+
+    @Test(description = "verify that only controllers affected by the changes since the base spec are re-rendered")
+    public void testDiffAgainst() throws Exception {
+        final File base = new SpecSynthesizer().seed(5L).paths(60).tags(6).writeTempFile(".yaml");
+        final File spec = File.createTempFile("spec-diff", ".yaml");
+        spec.deleteOnExit();
+        // renames a path, moves every tag5 operation to tag4
+        FileUtils.write(spec, FileUtils.readFileToString(base, "UTF-8")
+                .replace("/tag2/resources2/{id}:", "/tag2/resources2/{id}/moved:")
+                .replace("- tag5\n", "- tag4\n"), "UTF-8");
+
+        this.folder.create();
+        final File output = this.folder.newFolder("diffed");
+        final File expected = this.folder.newFolder("expected");
+        // the manifest records how the output was generated
+        generate(base.getAbsolutePath(), output, null, Collections.singletonMap(Rails5Codegen.INCREMENTAL, true));
+        final File unaffected = new File(output, "/app/controllers/api/v1/tag0_controller.rb");
+        Assert.assertTrue(unaffected.setLastModified(0L));
+
+        final Rails5Generator generator = generate(spec.getAbsolutePath(), output, null,
+                Collections.singletonMap(Rails5Codegen.DIFF_AGAINST, base.getAbsolutePath()));
+        generate(spec.getAbsolutePath(), expected);
+
+        final JsonNode changes = Json.mapper().readTree(new File(output, SpecDiff.ChangeSet.FILE_NAME));
+        Assert.assertEquals(changes.get("affectedTags").toString(), "[\"tag2\",\"tag4\",\"tag5\"]");
+        Assert.assertTrue(changes.get("removedTags").has("tag5"));
+        boolean moved = false;
+        for (JsonNode operation : changes.get("operations")) {
+            Assert.assertEquals(operation.get("kind").asText(), "CHANGED");
+            moved |= "get_resource2".equals(operation.get("name").asText())
+                    && "[\"path\"]".equals(operation.get("changes").toString());
+        }
+        Assert.assertTrue(moved);
+
+        Assert.assertEquals(generator.getDeleted(), 1);
+        Assert.assertEquals(unaffected.lastModified(), 0L);
+        for (File file : FileUtils.listFiles(expected, new String[] {"rb"}, true)) {
+            final File diffed = new File(output, expected.toPath().relativize(file.toPath()).toString());
+            Assert.assertTrue(FileUtils.contentEquals(file, diffed), diffed.toString());
+        }
+        Assert.assertEquals(FileUtils.listFiles(output, new String[] {"rb"}, true).size(),
+                FileUtils.listFiles(expected, new String[] {"rb"}, true).size());
+
+        // other options affect every controller, even without spec changes
+        final Map<String, Object> options = new HashMap<>();
+        options.put(Rails5Codegen.DIFF_AGAINST, spec.getAbsolutePath());
+        options.put(Rails5Codegen.VALIDATION_STYLE, Rails5Codegen.VALIDATION_STYLE_SCHEMA);
+        generate(spec.getAbsolutePath(), output, null, options);
+        Assert.assertNotEquals(unaffected.lastModified(), 0L);
+        Assert.assertTrue(FileUtils.readFileToString(unaffected, "UTF-8").contains("  include ParamsValidation\n"));
+
+        this.folder.delete();
+    }
+
+    @Test(description = "verify that an in-memory run produces the files of a run into the output folder")
+    public void testMemorySink() throws Exception {
+        final File output = new File(System.getProperty("java.io.tmpdir"), "codegentest-in-memory");
+        FileUtils.deleteDirectory(output);
+        final MemorySink sink = GeneratorRunner.runInMemory("src/test/resources/petstore.yaml", Collections.emptyMap());
+        Assert.assertFalse(output.exists());
+
+        this.folder.create();
+        final File expected = this.folder.getRoot();
+        generate(expected);
+        final Collection<File> files = FileUtils.listFiles(expected, null, true);
+        Assert.assertEquals(sink.getFiles().size(), files.size());
+        for (File file : files) {
+            final String path = expected.toURI().relativize(file.toURI()).getPath();
+            Assert.assertEquals(sink.read(path), FileUtils.readFileToString(file, "UTF-8"), path);
+        }
+
+        this.folder.delete();
+    }
+
+    @Test(description = "verify that zip and tar archives hold every generated file")
+    public void testArchiveSink() throws Exception {
+        final MemorySink expected = GeneratorRunner.runInMemory("src/test/resources/petstore.yaml", Collections.emptyMap());
+
+        final ByteArrayOutputStream zip = new ByteArrayOutputStream();
+        generateInto(new ArchiveSink(zip, ArchiveSink.Format.ZIP));
+        final Map<String, String> zipped = new TreeMap<>();
+        try (ZipInputStream in = new ZipInputStream(new ByteArrayInputStream(zip.toByteArray()))) {
+            for (ZipEntry entry; (entry = in.getNextEntry()) != null; ) {
+                zipped.put(entry.getName(), new String(IOUtils.toByteArray(in), StandardCharsets.UTF_8));
+            }
+        }
+        Assert.assertEquals(zipped.keySet(), expected.getFiles().keySet());
+        for (Map.Entry<String, String> entry : zipped.entrySet()) {
+            Assert.assertEquals(entry.getValue(), expected.read(entry.getKey()), entry.getKey());
+        }
+
+        // the same spec yields the same archive
+        final ByteArrayOutputStream again = new ByteArrayOutputStream();
+        generateInto(new ArchiveSink(again, ArchiveSink.Format.ZIP));
+        Assert.assertEquals(again.toByteArray(), zip.toByteArray());
+
+        final ByteArrayOutputStream tar = new ByteArrayOutputStream();
+        generateInto(new ArchiveSink(tar, ArchiveSink.Format.TAR));
+        final byte[] bytes = tar.toByteArray();
+        Assert.assertEquals(bytes.length % 512, 0);
+        final Map<String, String> tarred = new TreeMap<>();
+        for (int offset = 0; bytes[offset] != 0; ) {
+            final String name = new String(bytes, offset, 100, StandardCharsets.UTF_8).replace("\0", "");
+            final String prefix = new String(bytes, offset + 345, 155, StandardCharsets.UTF_8).replace("\0", "");
+            final int size = Integer.parseInt(new String(bytes, offset + 124, 11, StandardCharsets.US_ASCII), 8);
+            tarred.put(prefix.isEmpty() ? name : prefix + "/" + name, new String(bytes, offset + 512, size, StandardCharsets.UTF_8));
+            offset += 512 + (size + 511) / 512 * 512;
+        }
+        Assert.assertEquals(tarred, zipped);
+
+        // entries keep their order with files rendered in parallel
+        final String spec = new SpecSynthesizer().seed(5L).paths(60).tags(8).writeTempFile(".yaml").getAbsolutePath();
+        final Map<String, Object> parallel = Collections.singletonMap(Rails5Codegen.PARALLELISM, 4);
+        final ByteArrayOutputStream first = new ByteArrayOutputStream();
+        generateInto(spec, new ArchiveSink(first, ArchiveSink.Format.ZIP), parallel);
+        final ByteArrayOutputStream second = new ByteArrayOutputStream();
+        generateInto(spec, new ArchiveSink(second, ArchiveSink.Format.ZIP), parallel);
+        Assert.assertEquals(second.toByteArray(), first.toByteArray());
+    }
+
+    @Test(description = "verify that JSON bodies are validated against generated JSON Schemas with refs inlined")
+    public void testBodySchemas() throws Exception {
+        this.folder.create();
+        final File output = this.folder.getRoot();
+        generate("src/test/resources/nested_body.yaml", output, null, Collections.singletonMap(Rails5Codegen.BODY_SCHEMAS, true));
+
+        final String controller = FileUtils.readFileToString(new File(output, "/app/controllers/api/v1/orders_controller.rb"), "UTF-8");
+        Assert.assertTrue(controller.contains("class OrdersController < ApplicationController\n  include BodyValidation\n"));
+        Assert.assertTrue(controller.contains("  def create\n    validate_body!\n    # Your code here\n"));
+        // the body is no longer validated field by field
+        Assert.assertFalse(controller.contains("param! :customer"));
+
+        final JsonNode schemas = Json.mapper().readTree(new File(output, "/config/schemas/orders.json"));
+        final JsonNode create = schemas.get("create");
+        Assert.assertTrue(create.get("required").asBoolean());
+        Assert.assertEquals(create.at("/schema/$schema").asText(), "http://json-schema.org/draft-04/schema#");
+        Assert.assertEquals(create.at("/schema/properties/customer/required/0").asText(), "name");
+        Assert.assertEquals(create.at("/schema/properties/customer/properties/referrer/$ref").asText(), "#/definitions/Customer");
+        Assert.assertEquals(create.at("/schema/properties/shipping/properties/street/maxLength").asInt(), 80);
+        Assert.assertTrue(create.at("/schema/definitions/Customer/properties").has("tags"));
+        Assert.assertTrue(schemas.has("update"));
+        Assert.assertTrue(new File(output, "/app/controllers/concerns/body_validation.rb").isFile());
+
+        this.folder.delete();
+    }
+
+    @Test(description = "verify that the resources routes style routes RESTful actions through resources")
+    public void testResourcesRoutesStyle() throws Exception {
+        this.folder.create();
+        final File output = this.folder.getRoot();
+        generate("src/test/resources/petstore.yaml", output, null,
+                Collections.singletonMap(Rails5Codegen.ROUTES_STYLE, Rails5Codegen.ROUTES_STYLE_RESOURCES));
+
+        final String routes = FileUtils.readFileToString(new File(output, "/config/routes.rb"), "UTF-8");
+        Assert.assertFalse(routes.contains("add_swagger_route"));
+        Assert.assertTrue(routes.contains("  scope '/' do\n"
+                + "    match '/pets/findByStatus', to: 'pets#find_pets_by_status', via: :get\n"
+                + "    match '/pets/findByTags', to: 'pets#find_pets_by_tags', via: :get\n"
+                + "    resources :pets, controller: 'pets', only: [:create, :destroy, :show, :update], param: :petId\n"
+                + "  end\n"));
+
+        this.folder.delete();
+    }
+
+    @Test(description = "verify that the schema validation style validates against one constant per action")
+    public void testSchemaValidationStyle() throws Exception {
+        this.folder.create();
+        final File output = this.folder.getRoot();
+        generate("src/test/resources/petstore.yaml", output, null,
+                Collections.singletonMap(Rails5Codegen.VALIDATION_STYLE, Rails5Codegen.VALIDATION_STYLE_SCHEMA));
+
+        final String controller = FileUtils.readFileToString(
+                new File(output, "/app/controllers/api/v1/pets_controller.rb"), "UTF-8");
+        Assert.assertFalse(controller.contains("param!"));
+        Assert.assertTrue(controller.contains("  include ParamsValidation\n"));
+        Assert.assertTrue(controller.contains("  SHOW_PARAMS = ParamsValidation.schema(\n"
+                + "    pet_id: { type: Integer, required: true },\n"
+                + "  )\n"));
+        Assert.assertTrue(controller.contains("    status: { type: String, required: false, in: [\"available\", \"pending\", \"sold\"] },\n"));
+        Assert.assertTrue(controller.contains("  def show\n    validate_params! SHOW_PARAMS\n"));
+        Assert.assertTrue(new File(output, "/app/controllers/concerns/params_validation.rb").isFile());
+        Assert.assertTrue(new File(output, "/script/params_validation_benchmark.rb").isFile());
+
+        this.folder.delete();
+    }
+
+    @Test(description = "verify that every returned model gets a serializer with an explicit field list")
+    public void testResponseSerializers() throws Exception {
+        this.folder.create();
+        final File output = this.folder.getRoot();
+        generate("src/test/resources/petstore.yaml", output, null,
+                Collections.singletonMap(Rails5Codegen.SERIALIZERS, true));
+
+        final File[] serializers = new File(output, "/app/serializers").listFiles();
+        Assert.assertNotNull(serializers);
+        Assert.assertEquals(serializers.length, 4);
+
+        final String pet = FileUtils.readFileToString(new File(output, "/app/serializers/pet_serializer.rb"), "UTF-8");
+        Assert.assertTrue(pet.contains("class PetSerializer\n  extend ApplicationSerializer\n"));
+        Assert.assertTrue(pet.contains("      'category' => CategorySerializer.serialize(object.category),\n"));
+        Assert.assertTrue(pet.contains("      'photoUrls' => object.photo_urls,\n"));
+        Assert.assertTrue(pet.contains("      'tags' => TagSerializer.serialize_many(object.tags),\n"));
+
+        final String controller = FileUtils.readFileToString(
+                new File(output, "/app/controllers/api/v1/pets_controller.rb"), "UTF-8");
+        Assert.assertTrue(controller.contains("  def show\n    param! :pet_id, Integer, required: true\n"
+                + "    # Your code here\n"
+                + "    # render json: PetSerializer.dump(pet), status: 200\n"));
+
+        this.folder.delete();
+    }
+
+    @Test(description = "verify that cache hints of the spec generate HTTP and Rails.cache caching")
+    public void testCacheHints() throws Exception {
+        this.folder.create();
+        final File spec = new File(this.folder.getRoot(), "petstore.yaml");
+        FileUtils.writeStringToFile(spec, FileUtils.readFileToString(new File("src/test/resources/petstore.yaml"), "UTF-8")
+                .replace("      operationId: getPetById\n", "      operationId: getPetById\n      x-cache-ttl: 300\n      x-etag: true\n")
+                .replace("      operationId: findPetsByStatus\n", "      operationId: findPetsByStatus\n      x-etag: strong\n"), "UTF-8");
+        final File output = new File(this.folder.getRoot(), "out");
+        generate(spec.getAbsolutePath(), output);
+
+        final String controller = FileUtils.readFileToString(
+                new File(output, "/app/controllers/api/v1/pets_controller.rb"), "UTF-8");
+        Assert.assertTrue(controller.contains("  def show\n"
+                + "    param! :pet_id, Integer, required: true\n"
+                + "    expires_in 300.seconds\n"
+                + "    pet = Rails.cache.fetch(['pets#show', params[:petId]], expires_in: 300.seconds) do\n"
+                + "      # Your code here\n"
+                + "    end\n"
+                + "    return unless stale?(etag: pet)\n"
+                + "  end\n"));
+        Assert.assertTrue(controller.contains("    return unless stale?(strong_etag: pet_list)\n"));
+        Assert.assertFalse(controller.contains("  def update\n    param! :pet_id, Integer, required: true\n    expires_in"));
+
+        this.folder.delete();
+    }
+
+    @Test(description = "verify that collection endpoints are keyset paginated with preloaded associations")
+    public void testPagination() throws Exception {
+        this.folder.create();
+        final File spec = new File(this.folder.getRoot(), "petstore.yaml");
+        FileUtils.writeStringToFile(spec, FileUtils.readFileToString(new File("src/test/resources/petstore.yaml"), "UTF-8")
+                .replace("      operationId: findPetsByTags\n      parameters:\n",
+                        "      operationId: findPetsByTags\n      x-cache-ttl: 60\n      parameters:\n"
+                        + "        - name: limit\n          in: query\n          schema:\n            type: integer\n            maximum: 50\n"
+                        + "        - name: cursor\n          in: query\n          schema:\n            type: string\n")
+                .replace("      operationId: findPetsByStatus\n      parameters:\n",
+                        "      operationId: findPetsByStatus\n      parameters:\n"
+                        + "        - name: offset\n          in: query\n          schema:\n            type: integer\n"
+                        + "        - name: limit\n          in: query\n          schema:\n            type: integer\n            maximum: 10000000000\n"), "UTF-8");
+        final File output = new File(this.folder.getRoot(), "out");
+        generate(spec.getAbsolutePath(), output, null, Collections.singletonMap(Rails5Codegen.PAGINATION, true));
+
+        final String controller = FileUtils.readFileToString(
+                new File(output, "/app/controllers/api/v1/pets_controller.rb"), "UTF-8");
+        Assert.assertTrue(controller.contains("class PetsController < ApplicationController\n  include Pagination\n"));
+        // a maximum beyond the page size does not raise it
+        Assert.assertTrue(controller.contains("    # Your code here\n"
+                + "    pet_list = paginate(Pet.includes(:category, :tags), offset: params[:offset], limit: params[:limit], max: 100, next_cursor: false)\n"));
+        Assert.assertTrue(controller.contains("    pet_list = Rails.cache.fetch(['pets#find_pets_by_tags', request.query_string], expires_in: 60.seconds) do\n"
+                + "      # Your code here\n"
+                + "      paginate(Pet.includes(:category, :tags), cursor: params[:cursor], limit: params[:limit], max: 50)\n"
+                + "    end\n"
+                + "    set_next_cursor(pet_list, params[:limit], max: 50)\n"));
+        Assert.assertTrue(new File(output, "/app/controllers/concerns/pagination.rb").isFile());
+
+        // without a cursor or offset param there is no way to request a next page
+        final File plain = new File(this.folder.getRoot(), "plain");
+        generate("src/test/resources/petstore.yaml", plain, null, Collections.singletonMap(Rails5Codegen.PAGINATION, true));
+        final String unpaginated = FileUtils.readFileToString(
+                new File(plain, "/app/controllers/api/v1/pets_controller.rb"), "UTF-8");
+        Assert.assertFalse(unpaginated.contains("paginate("));
+        Assert.assertFalse(unpaginated.contains("set_next_cursor"));
+
+        this.folder.delete();
+    }
+
+    private void assertParallelOutputMatchesSequential(File spec, String name, Map<String, Object> options) throws Exception {
+        final File sequential = this.folder.newFolder(name + "-sequential");
+        final File parallel = this.folder.newFolder(name + "-parallel");
+        generate(spec.getAbsolutePath(), sequential, null, options);
+        final Map<String, Object> parallelOptions = new HashMap<>(options);
+        parallelOptions.put(Rails5Codegen.PARALLELISM, 4);
+        final Rails5Generator generator = generate(spec.getAbsolutePath(), parallel, null, parallelOptions);
+
+        final Collection<File> files = FileUtils.listFiles(sequential, null, true);
+        Assert.assertEquals(generator.getWritten(), files.size());
+        Assert.assertEquals(FileUtils.listFiles(parallel, null, true).size(), files.size());
+        for (File file : files) {
+            final File other = new File(parallel, sequential.toURI().relativize(file.toURI()).getPath());
+            Assert.assertTrue(FileUtils.contentEquals(file, other), other.getPath());
+        }
+    }
+
+    private void generateInto(ArchiveSink sink) throws Exception {
+        generateInto("src/test/resources/petstore.yaml", sink, Collections.emptyMap());
+    }
+
+    private void generateInto(String spec, ArchiveSink sink, Map<String, Object> properties) throws Exception {
+        final CodegenConfigurator configurator = new CodegenConfigurator()
+            .setLang("rails5")
+            .setInputSpecURL(spec)
+            .setOutputDir(new File(System.getProperty("java.io.tmpdir"), "codegentest-in-memory").getAbsolutePath());
+        properties.forEach(configurator::addAdditionalProperty);
+        final ClientOptInput input = configurator.toClientOptInput();
+        try (ArchiveSink closing = sink) {
+            ((Rails5Codegen) input.getConfig()).setOutputSink(closing);
+            new Rails5Generator().opts(input).generate();
+        }
+    }
+
+    private Rails5Generator generate(File output) {
+        return generate("src/test/resources/petstore.yaml", output);
+    }
+
+    private Rails5Generator generate(String spec, File output) {
+        return generate(spec, output, null);
+    }
+
+    private Rails5Generator generate(String spec, File output, File templateDir) {
+        return generate(spec, output, templateDir, Collections.emptyMap());
+    }
+
+    private Rails5Generator generate(String spec, File output, File templateDir, Map<String, Object> properties) {
+        final CodegenConfigurator configurator = new CodegenConfigurator()
+            .setLang("rails5")
+            .setInputSpecURL(spec)
+            .setOutputDir(output.getAbsolutePath());
+        if (templateDir != null) {
+            configurator.setTemplateDir(templateDir.getAbsolutePath());
+        }
+        properties.forEach(configurator::addAdditionalProperty);
+
+        final Rails5Generator generator = new Rails5Generator();
+        generator.opts(configurator.toClientOptInput()).generate();
+        return generator;
+    }
+}
@@ -0,0 +1,49 @@
+package trungvitlonx.swagger.generator.rails5;
+
+import io.swagger.codegen.v3.generators.DefaultCodegenConfig;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Random;
+
+public class RubyIdentifiersTest {
+    private static final String ALPHABET = "aBzZ09._-$ \nAAbbcXYzéİ";
+
+    @Test(description = "verify that underscore matches the regex based DefaultCodegenConfig.underscore")
+    public void testUnderscoreMatchesDefault() {
+        final String[] samples = {"", "petId", "PetID", "HTTPServer", "HTTPServerError", "ABCdefGHijk", "already_snake",
+            "created-at", "with space", "pkg.Inner$Class", "v2Api", "ID", "IDs", "a1B2c3", "X-Rate-Limit"};
+        for (String sample : samples) {
+            Assert.assertEquals(RubyIdentifiers.underscore(sample), DefaultCodegenConfig.underscore(sample), sample);
+        }
+
+        final Random random = new Random(42);
+        for (int i = 0; i < 20000; i++) {
+            final StringBuilder builder = new StringBuilder();
+            final int length = random.nextInt(12);
+            for (int j = 0; j < length; j++) {
+                builder.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+            }
+            final String sample = builder.toString();
+            Assert.assertEquals(RubyIdentifiers.underscore(sample), DefaultCodegenConfig.underscore(sample), sample);
+            Assert.assertEquals(RubyIdentifiers.isUpperSnakeCase(sample), sample.matches("^[A-Z_]*$"), sample);
+            Assert.assertEquals(RubyIdentifiers.startsWithDigit(sample), sample.matches("^\\d.*"), sample);
+        }
+    }
+
+    @Test(description = "verify Ruby identifier conversions of the Rails5 generator")
+    public void testRails5Names() {
+        final Rails5Codegen codegen = new Rails5Codegen();
+
+        Assert.assertEquals(codegen.toVarName("petId"), "pet_id");
+        Assert.assertEquals(codegen.toVarName("created-at"), "created_at");
+        Assert.assertEquals(codegen.toVarName("STATUS_CODE"), "status_code");
+        Assert.assertEquals(codegen.toVarName("end"), "_end");
+        Assert.assertEquals(codegen.toVarName("1st"), "_1st");
+        Assert.assertEquals(codegen.toParamName("photoUrls"), "photo_urls");
+        Assert.assertEquals(codegen.toApiFilename("pet-store"), "pet_store");
+        Assert.assertEquals(codegen.toOperationId("findPetsByStatus"), "find_pets_by_status");
+        Assert.assertEquals(codegen.toOperationId("return"), "call_return");
+    }
+}